@@ -15,6 +15,11 @@ public abstract class AbstractCondition<L extends Operand, O extends Conditional
 
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         //.appendConstant("(")
@@ -26,15 +31,15 @@ public abstract class AbstractCondition<L extends Operand, O extends Conditional
         //.appendConstant(")")
     }
 
-    protected L getLeft() {
+    public L getLeft() {
         return left;
     }
 
-    protected O getOperator() {
+    public O getOperator() {
         return operator;
     }
 
-    protected R getRight() {
+    public R getRight() {
         return right;
     }
 
@@ -6,8 +6,24 @@ import java.util.List;
 
 public abstract class AbstractHasJointure implements HasJointure {
 
-    private final List<Jointure> jointures = new ArrayList<>();
-    
+    private final List<Jointure> jointures;
+    private final boolean frozen;
+
+    protected AbstractHasJointure() {
+        this.jointures = new ArrayList<>();
+        this.frozen = false;
+    }
+
+    /**
+     * Creates a frozen copy of the jointures of the given object.
+     *
+     * @param other object whose jointures are copied
+     */
+    protected AbstractHasJointure(AbstractHasJointure other) {
+        this.jointures = FreezeSupport.freezeAll(other.jointures);
+        this.frozen = true;
+    }
+
     @Override
     public Jointure innerJoin(String schema, String tableName, Alias alias) {
         return join(JointureType.INNER, schema, tableName, alias);
@@ -29,6 +45,7 @@ public abstract class AbstractHasJointure implements HasJointure {
     }
     
     public Jointure insertJoin(Jointure before, JointureType type, String schema, String tableName, Alias alias) {
+        FreezeSupport.checkNotFrozen(this, frozen);
         int index = jointures.indexOf(before);
         if (index == -1) {
             index = 0;
@@ -39,12 +56,18 @@ public abstract class AbstractHasJointure implements HasJointure {
     }
     
     public Jointure join(JointureType type, String schema, String tableName, Alias alias) {
+        FreezeSupport.checkNotFrozen(this, frozen);
         Jointure jointure = new Jointure(type, schema, tableName, alias);
         jointures.add(jointure);
         return jointure;
     }
     
-    protected List<Jointure> getJointures() {
+    void addJointures(List<Jointure> others) {
+        FreezeSupport.checkNotFrozen(this, frozen);
+        jointures.addAll(others);
+    }
+
+    public List<Jointure> getJointures() {
         return Collections.unmodifiableList(jointures);
     }
     
@@ -52,4 +75,8 @@ public abstract class AbstractHasJointure implements HasJointure {
         return !jointures.isEmpty();
     }
 
+    public boolean isFrozen() {
+        return frozen;
+    }
+
 }
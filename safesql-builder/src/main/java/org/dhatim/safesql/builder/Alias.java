@@ -12,12 +12,16 @@ public final class Alias implements SafeSqlizable {
     private final String name;
 
     public Alias(AliasOwner owner, String name) {
+        checkName(name);
+        this.owner = owner;
+        this.name = name;
+    }
+
+    static void checkName(String name) {
         Objects.requireNonNull(name, "Alias name must be not null");
         if (name.isEmpty()) {
             throw new IllegalArgumentException("Alias name must be not empty");
         }
-        this.owner = owner;
-        this.name = name;
     }
 
     public AliasOwner getOwner() {
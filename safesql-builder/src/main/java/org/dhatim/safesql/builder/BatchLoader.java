@@ -0,0 +1,264 @@
+package org.dhatim.safesql.builder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.dhatim.safesql.SafeSql;
+
+/**
+ * Merges the lookups of single keys into queries looking up many keys at once.
+ *
+ * <p>Each call to {@link #load(Object)} adds a key to the current batch and returns a future of the rows of this key.
+ * A batch is dispatched when it reaches the maximum batch size, when the window started by its first key elapses, or
+ * when {@link #dispatch()} is called. Its query is the query of this loader restricted by
+ * <code>key = ANY(?)</code>, with the distinct keys of the batch as a single array parameter, so all the batches
+ * share the same sql. The sql type of the array is deduced from the keys, see {@link InCondition#asArray()}, or set by
+ * {@link #arrayType(String)}: a batch whose type can be neither deduced nor set fails. The rows returned by the query
+ * are dispatched to the futures by the key function.
+ *
+ * <pre>{@code
+ * SelectQuery query = new SelectQuery();
+ * query.select("id").select("name").from("customer");
+ * BatchLoader<Long, Customer> loader = new BatchLoader<>(query, new Column("id"), this::fetchCustomers, Customer::getId)
+ *         .window(Duration.ofMillis(2), scheduler)
+ *         .maxBatchSize(500);
+ * CompletableFuture<List<Customer>> customer = loader.load(42L);
+ * }</pre>
+ *
+ * @param <K> type of the keys
+ * @param <R> type of the rows
+ */
+public final class BatchLoader<K, R> {
+
+    private final SelectQuery query;
+    private final Operand keyOperand;
+    private final Function<? super SafeSql, ? extends List<R>> loader;
+    private final Function<? super R, ? extends K> keyFunction;
+
+    private int maxBatchSize = 1000;
+    private long window;
+    private ScheduledExecutorService scheduler;
+    private Executor executor = Runnable::run;
+    private String arrayType;
+
+    private Map<K, CompletableFuture<List<R>>> batch = new LinkedHashMap<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+
+    /**
+     * Creates a loader dispatching batches only when they are full or when {@link #dispatch()} is called.
+     *
+     * @param query query selecting the rows of all the keys
+     * @param keyOperand operand of the query compared to the keys
+     * @param loader function executing a rendered query
+     * @param keyFunction key of a row returned by the query
+     */
+    public BatchLoader(SelectQuery query, Operand keyOperand, Function<? super SafeSql, ? extends List<R>> loader,
+            Function<? super R, ? extends K> keyFunction) {
+        this.query = new SelectQuery(Objects.requireNonNull(query, "query"));
+        this.keyOperand = Objects.requireNonNull(keyOperand, "keyOperand");
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.keyFunction = Objects.requireNonNull(keyFunction, "keyFunction");
+    }
+
+    /**
+     * Sets the maximum number of distinct keys of a batch, 1000 by default.
+     *
+     * @param maxBatchSize maximum number of keys
+     * @return a reference to this object
+     */
+    public synchronized BatchLoader<K, R> maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Dispatches the batches after a time, counted from their first key.
+     *
+     * @param window time to wait for more keys
+     * @param scheduler scheduler of the dispatches
+     * @return a reference to this object
+     */
+    public synchronized BatchLoader<K, R> window(Duration window, ScheduledExecutorService scheduler) {
+        this.window = window.toNanos();
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        return this;
+    }
+
+    /**
+     * Sets the executor of the queries. By default, a query is executed by the thread dispatching its batch: the
+     * scheduler, the caller of {@link #dispatch()} or the caller filling the batch.
+     *
+     * @param executor executor of the queries
+     * @return a reference to this object
+     */
+    public synchronized BatchLoader<K, R> executor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        return this;
+    }
+
+    /**
+     * Sets the sql type of the elements of the array of keys. By default, the type is deduced from the keys.
+     *
+     * @param sqlType type of the keys, like <code>int8</code>
+     * @return a reference to this object
+     * @throws IllegalArgumentException if the type is not a type name
+     * @see InCondition#asArray(String)
+     */
+    public synchronized BatchLoader<K, R> arrayType(String sqlType) {
+        if (sqlType != null) {
+            InCondition.checkArrayType(sqlType);
+        }
+        this.arrayType = sqlType;
+        return this;
+    }
+
+    /**
+     * Adds a key to the current batch.
+     *
+     * @param key key to look up
+     * @return a future of the rows of the key, empty if there is none
+     */
+    public CompletableFuture<List<R>> load(K key) {
+        Objects.requireNonNull(key, "key");
+        Map<K, CompletableFuture<List<R>>> full = null;
+        CompletableFuture<List<R>> future;
+        synchronized (this) {
+            future = batch.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                batch.put(key, future);
+                if (batch.size() >= maxBatchSize) {
+                    full = take();
+                } else if (batch.size() == 1 && scheduler != null) {
+                    Map<K, CompletableFuture<List<R>>> current = batch;
+                    scheduler.schedule(() -> dispatch(current), window, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+        return future;
+    }
+
+    /**
+     * Dispatches the current batch, without waiting for its window.
+     */
+    public void dispatch() {
+        Map<K, CompletableFuture<List<R>>> current;
+        synchronized (this) {
+            current = batch.isEmpty() ? null : take();
+        }
+        if (current != null) {
+            submit(current);
+        }
+    }
+
+    private void dispatch(Map<K, CompletableFuture<List<R>>> expected) {
+        Map<K, CompletableFuture<List<R>>> current;
+        synchronized (this) {
+            // the batch may have been dispatched since it was scheduled
+            current = batch == expected ? take() : null;
+        }
+        if (current != null) {
+            submit(current);
+        }
+    }
+
+    private Map<K, CompletableFuture<List<R>>> take() {
+        Map<K, CompletableFuture<List<R>>> current = batch;
+        batch = new LinkedHashMap<>();
+        return current;
+    }
+
+    private void submit(Map<K, CompletableFuture<List<R>>> current) {
+        try {
+            executor.execute(() -> execute(current));
+        } catch (RuntimeException e) {
+            fail(current, e);
+        }
+    }
+
+    private void execute(Map<K, CompletableFuture<List<R>>> current) {
+        batches.increment();
+        keys.add(current.size());
+        try {
+            List<R> rows = loader.apply(toQuery(current.keySet()).toSafeSql());
+            Map<K, List<R>> rowsByKey = new HashMap<>();
+            for (R row : rows) {
+                rowsByKey.computeIfAbsent(keyFunction.apply(row), k -> new ArrayList<>()).add(row);
+            }
+            for (Map.Entry<K, CompletableFuture<List<R>>> entry : current.entrySet()) {
+                List<R> keyRows = rowsByKey.get(entry.getKey());
+                entry.getValue().complete(keyRows == null ? Collections.emptyList() : Collections.unmodifiableList(keyRows));
+            }
+        } catch (RuntimeException | Error e) {
+            // the failure is reported by the futures, not to the thread dispatching the batch
+            fail(current, e);
+        }
+    }
+
+    private void fail(Map<K, CompletableFuture<List<R>>> current, Throwable e) {
+        for (CompletableFuture<List<R>> future : current.values()) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Returns the query looking up some keys.
+     *
+     * @param keys keys to look up
+     * @return a copy of the query of this loader, restricted to the given keys
+     * @throws BuilderException if the sql type of the keys cannot be deduced and is not set
+     */
+    public SelectQuery toQuery(Iterable<? extends K> keys) {
+        List<Operand> values = new ArrayList<>();
+        for (K key : keys) {
+            values.add(Value.of(key));
+        }
+        InCondition condition = (InCondition) Condition.in(keyOperand, values);
+        String type;
+        synchronized (this) {
+            type = arrayType;
+        }
+        InCondition array = type == null ? condition.asArray() : condition.asArray(type);
+        if (array.getArrayType() == null) {
+            // a list of parameters would render a different sql for each batch size
+            throw new BuilderException("Cannot deduce the array type of keys " + values + ", set it with arrayType()");
+        }
+        SelectQuery batchQuery = new SelectQuery(query);
+        batchQuery.and(array);
+        return batchQuery;
+    }
+
+    /**
+     * @return the number of executed batches
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return the number of distinct keys looked up by the executed batches
+     */
+    public long getKeys() {
+        return keys.sum();
+    }
+
+}
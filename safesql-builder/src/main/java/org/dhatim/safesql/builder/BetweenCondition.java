@@ -8,6 +8,19 @@ public class BetweenCondition extends AbstractCondition<Operand, RelationalOpera
         super(left, notBetween ? RelationalOperator.NOT_BETWEEN : RelationalOperator.BETWEEN, new LowHighOperand(low, high));
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    public Operand getLow() {
+        return getRight().getLow();
+    }
+
+    public Operand getHigh() {
+        return getRight().getHigh();
+    }
+
     @Override
     public Condition negate() {
         return new BetweenCondition(getLeft(), getOperator() == RelationalOperator.NOT_BETWEEN, getRight().getLow(), getRight().getHigh());
@@ -1,6 +1,5 @@
 package org.dhatim.safesql.builder;
 
-import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 
 public class BooleanColumn extends Column implements Condition {
@@ -16,13 +15,21 @@ public class BooleanColumn extends Column implements Condition {
         this.not = not;
     }
     
+    public boolean isNegative() {
+        return not;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
-    public SafeSql toSafeSql() {
+    public void appendTo(SafeSqlBuilder builder) {
         if (not) {
-            return new SafeSqlBuilder().append("NOT ").append(super.toSafeSql()).toSafeSql();
-        } else {
-            return super.toSafeSql();
+            builder.append("NOT ");
         }
+        super.appendTo(builder);
     }
 
     @Override
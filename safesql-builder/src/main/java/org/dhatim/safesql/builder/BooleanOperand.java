@@ -20,14 +20,19 @@ public class BooleanOperand implements Operand, Condition {
         this.expression = expression;
     }
 
-    protected Expression getExpression() {
+    public Expression getExpression() {
         return expression;
     }
 
-    protected boolean isNegative() {
+    public boolean isNegative() {
         return not;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         if (not) {
@@ -6,6 +6,11 @@ public class BooleanValue extends Value implements Condition {
         super(data);
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public Condition negate() {
         return new BooleanValue(!((Boolean) value()));
@@ -1,57 +1,121 @@
 package org.dhatim.safesql.builder;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class BuilderContext implements AliasOwner {
-    
-    private static final Pattern PATTERN = Pattern.compile("(.*_)([0-9]+)$");
 
-    private final Set<Alias> generatedAliases = new HashSet<>();
-    private final Set<String> generatedIdentifiers = new HashSet<>();
-    
+    /**
+     * Names generated in a context. When a suggested name is already taken, a numbered suffix is added or incremented:
+     * <code>t</code> gives <code>t_1</code>, <code>t_1</code> gives <code>t_2</code> and so on until a free name is
+     * found. Numbers known to be taken are skipped, so generating a name takes constant amortized time.
+     */
+    private static final class Names {
+
+        private final Set<String> taken;
+
+        /**
+         * For each prefix, maps a taken number to a greater number that may be free. All numbers in between are taken.
+         */
+        private final Map<String, Map<Integer, Integer>> skips = new HashMap<>();
+
+        Names() {
+            this.taken = new HashSet<>();
+        }
+
+        Names(Names other) {
+            // skips are only a shortcut, they are rebuilt on demand
+            this.taken = new HashSet<>(other.taken);
+        }
+
+        String generate(String suggestion) {
+            if (taken.add(suggestion)) {
+                return suggestion;
+            }
+            String prefix;
+            int n;
+            int index = suggestion.lastIndexOf('_');
+            if (isNumbered(suggestion, index)) {
+                prefix = suggestion.substring(0, index + 1);
+                n = Integer.parseInt(suggestion.substring(index + 1)) + 1;
+            } else {
+                prefix = suggestion + '_';
+                n = 1;
+            }
+            Map<Integer, Integer> skip = skips.computeIfAbsent(prefix, p -> new HashMap<>());
+            List<Integer> visited = new ArrayList<>();
+            String name;
+            while (taken.contains(name = prefix + n)) {
+                visited.add(n);
+                Integer next = skip.get(n);
+                n = next == null ? n + 1 : next;
+            }
+            for (Integer k : visited) {
+                skip.put(k, n);
+            }
+            taken.add(name);
+            return name;
+        }
+
+        private static boolean isNumbered(String name, int underscoreIndex) {
+            if (underscoreIndex < 0 || underscoreIndex == name.length() - 1) {
+                return false;
+            }
+            for (int i = underscoreIndex + 1; i < name.length(); i++) {
+                char ch = name.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private Names aliases;
+    private Names identifiers;
+
+    /**
+     * <code>true</code> when the names are shared with another context and must be copied before being modified.
+     */
+    private boolean shared;
+
     public BuilderContext() {
+        this.aliases = new Names();
+        this.identifiers = new Names();
     }
-    
+
     BuilderContext(BuilderContext other) {
-        this(other.generatedAliases, other.generatedIdentifiers);
+        this.aliases = other.aliases;
+        this.identifiers = other.identifiers;
+        this.shared = true;
+        if (!other.shared) {
+            other.shared = true;
+        }
     }
-    
-    private BuilderContext(Set<Alias> generatedAliases, Set<String> generatedIdentifiers) {
-        this.generatedAliases.addAll(generatedAliases);
-        this.generatedIdentifiers.addAll(generatedIdentifiers);
+
+    private void prepareWrite() {
+        if (shared) {
+            aliases = new Names(aliases);
+            identifiers = new Names(identifiers);
+            shared = false;
+        }
     }
-    
+
     public Alias generate(String suggestion) {
-        Alias suggestedAlias = new Alias(this, suggestion);
-        while (generatedAliases.contains(suggestedAlias)) {
-            Matcher matcher = PATTERN.matcher(suggestedAlias.getName());
-            if (matcher.matches()) {
-                int n = Integer.parseInt(matcher.group(2));
-                suggestedAlias = new Alias(this, matcher.group(1) + (n + 1));
-            } else {
-                suggestedAlias = new Alias(this, suggestedAlias.getName() + "_1");
-            }
-        }
-        generatedAliases.add(suggestedAlias);
-        return suggestedAlias;
+        // reject an invalid name before taking it
+        Alias.checkName(suggestion);
+        prepareWrite();
+        return new Alias(this, aliases.generate(suggestion));
     }
-    
+
     public String generateIdentifier(String suggestion) {
-        String identifier = suggestion;
-        while (generatedIdentifiers.contains(identifier)) {
-            Matcher matcher = PATTERN.matcher(identifier);
-            if (matcher.matches()) {
-                int n = Integer.parseInt(matcher.group(2));
-                identifier = matcher.group(1) + (n + 1);
-            } else {
-                identifier = suggestion + "_1";
-            }
-        }
-        generatedIdentifiers.add(identifier);
-        return identifier;
+        prepareWrite();
+        return identifiers.generate(suggestion);
     }
-    
+
 }
@@ -21,6 +21,18 @@ public class Call implements Operand {
         return arguments.clone();
     }
 
+    /**
+     * @return the arguments of this call, without copying them: the array must not be modified
+     */
+    Operand[] arguments() {
+        return arguments;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append(functionName).append("(");
@@ -1,18 +1,31 @@
 package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
-import org.dhatim.safesql.SafeSqlUtils;
 import org.dhatim.safesql.SafeSqlizable;
 
-public abstract class Case<T extends SafeSqlizable> implements Operand {
+public abstract class Case<T extends SafeSqlizable> implements Operand, Freezable<Case<T>> {
 
     public static class ConditionalCase extends Case<Condition> {
 
+        public ConditionalCase() {
+        }
+
+        private ConditionalCase(ConditionalCase other) {
+            super(other);
+        }
+
+        @Override
+        public ConditionalCase freeze() {
+            return isFrozen() ? this : new ConditionalCase(this);
+        }
+
         @Override
-        protected SafeSql getCaseClause() {
-            return SafeSqlUtils.fromConstant("CASE");
+        protected void appendCaseClause(SafeSqlBuilder builder) {
+            builder.append("CASE");
         }
 
     }
@@ -25,14 +38,28 @@ public abstract class Case<T extends SafeSqlizable> implements Operand {
             this.expression = expression;
         }
 
+        private SimpleCase(SimpleCase other) {
+            super(other);
+            this.expression = Freezable.freeze(other.expression);
+        }
+
+        public Operand getExpression() {
+            return expression;
+        }
+
         @Override
-        protected SafeSql getCaseClause() {
-            return new SafeSqlBuilder().append("CASE ").append(expression).toSafeSql();
+        public SimpleCase freeze() {
+            return isFrozen() ? this : new SimpleCase(this);
+        }
+
+        @Override
+        protected void appendCaseClause(SafeSqlBuilder builder) {
+            builder.append("CASE ").append(expression);
         }
 
     }
 
-    private static class When<T extends SafeSqlizable> implements Operand {
+    public static final class When<T extends SafeSqlizable> implements SafeSqlizable {
 
         private final T expression;
         private final Operand result;
@@ -42,6 +69,14 @@ public abstract class Case<T extends SafeSqlizable> implements Operand {
             this.result = result;
         }
 
+        public T getExpression() {
+            return expression;
+        }
+
+        public Operand getResult() {
+            return result;
+        }
+
         @Override
         public void appendTo(SafeSqlBuilder builder) {
             builder.append("WHEN ").append(expression).append(" THEN ").append(result);
@@ -49,26 +84,78 @@ public abstract class Case<T extends SafeSqlizable> implements Operand {
 
     }
 
-    private final ArrayList<When<T>> whens = new ArrayList<>();
+    private final List<When<T>> whens;
     private Operand elseOperand;
+    private final FrozenSql rendered;
 
     private Case() {
+        this.whens = new ArrayList<>();
+        this.rendered = null;
+    }
+
+    private Case(Case<T> other) {
+        List<When<T>> copy = new ArrayList<>(other.whens.size());
+        for (When<T> when : other.whens) {
+            copy.add(new When<>(Freezable.freeze(when.expression), Freezable.freeze(when.result)));
+        }
+        this.whens = Collections.unmodifiableList(copy);
+        this.elseOperand = Freezable.freeze(other.elseOperand);
+        this.rendered = FrozenSql.render(other, sb -> {
+            other.appendCaseClause(sb);
+            renderWhens(sb);
+        });
     }
 
     public void add(T expression, Operand result) {
+        FreezeSupport.checkNotFrozen(this);
         whens.add(new When<T>(expression, result));
     }
 
     public void setElse(Operand operand) {
+        FreezeSupport.checkNotFrozen(this);
         this.elseOperand = operand;
     }
 
-    protected abstract SafeSql getCaseClause();
+    public List<When<T>> getWhens() {
+        return Collections.unmodifiableList(whens);
+    }
+
+    public Operand getElse() {
+        return elseOperand;
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return rendered != null;
+    }
+
+    protected abstract void appendCaseClause(SafeSqlBuilder builder);
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
 
     @Override
     public void appendTo(SafeSqlBuilder builder) {
-        builder.append(getCaseClause()).append(" ");
-        builder.joinedSqlizables(" ", whens).append(" ");
+        if (rendered != null) {
+            rendered.appendTo(builder);
+        } else {
+            appendCaseClause(builder);
+            renderWhens(builder);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered.toSafeSql() : Operand.super.toSafeSql();
+    }
+
+    private void renderWhens(SafeSqlBuilder builder) {
+        for (When<T> when : whens) {
+            builder.append(' ').append(when);
+        }
+        builder.append(' ');
         if (elseOperand != null) {
             builder.append("ELSE ").append(elseOperand).append(" ");
         }
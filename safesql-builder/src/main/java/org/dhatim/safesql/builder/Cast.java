@@ -12,6 +12,11 @@ public class Cast implements Operand {
         this.sqlType = sqlType;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append(operand)
@@ -43,6 +43,11 @@ public class Column implements Operand {
         return name;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         if (alias != null) {
@@ -6,7 +6,7 @@ import java.util.List;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
 
-public class CommonTableExpression implements SafeSqlizable {
+public class CommonTableExpression implements SafeSqlizable, Freezable<CommonTableExpression> {
 
     private final String name;
     private final SqlQuery query;
@@ -26,11 +26,33 @@ public class CommonTableExpression implements SafeSqlizable {
         return name;
     }
 
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames);
+    }
+
+    public SqlQuery getQuery() {
+        return query;
+    }
+
+    @Override
+    public CommonTableExpression freeze() {
+        return isFrozen() ? this : new CommonTableExpression(name, columnNames, Freezable.freeze(query));
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return !(query instanceof Freezable) || ((Freezable<?>) query).isFrozen();
+    }
+
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.identifier(name);
         if (!columnNames.isEmpty()) {
-            builder.joinedSqlizables(", ", "(", ")", columnNames.stream().map(Identifier::new));
+            builder.append('(').joined(columnNames, b -> b.append(", "), SafeSqlBuilder::identifier).append(')');
         }
         builder.append(" AS (")
                 .append(query)
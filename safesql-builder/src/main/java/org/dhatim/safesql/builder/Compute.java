@@ -26,6 +26,11 @@ public class Compute implements Operand {
         return operator;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append("(")
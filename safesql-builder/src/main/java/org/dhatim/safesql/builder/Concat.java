@@ -3,6 +3,8 @@ package org.dhatim.safesql.builder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import org.dhatim.safesql.SafeSqlBuilder;
 
 public class Concat implements Operand {
@@ -26,6 +28,15 @@ public class Concat implements Operand {
         list.addAll(Arrays.asList(others));
     }
 
+    public List<Operand> getOperands() {
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.joinedSqlizables(" || ", list);
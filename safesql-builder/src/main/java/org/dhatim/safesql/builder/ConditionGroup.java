@@ -2,19 +2,23 @@ package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 
-public class ConditionGroup implements Condition {
+public class ConditionGroup implements Condition, Freezable<ConditionGroup> {
 
     private final List<Condition> conditions;
     private final LogicalOperator operator;
+    private boolean sortConditions;
+    private final FrozenSql rendered;
 
     ConditionGroup(LogicalOperator operator) {
         this.conditions = new ArrayList<>();
         this.operator = operator;
+        this.rendered = null;
     }
 
     ConditionGroup(Collection<Condition> conditions, LogicalOperator operator) {
@@ -23,22 +27,73 @@ public class ConditionGroup implements Condition {
         }
         this.conditions = new ArrayList<>(conditions);
         this.operator = operator;
+        this.rendered = null;
+    }
+
+    private ConditionGroup(ConditionGroup other) {
+        this.conditions = FreezeSupport.freezeAll(other.conditions);
+        this.operator = other.operator;
+        this.sortConditions = other.sortConditions;
+        this.rendered = FrozenSql.render(this, this::render);
+    }
+
+    public LogicalOperator getOperator() {
+        return operator;
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 
     @Override
     public void appendTo(SafeSqlBuilder builder) {
-        SafeSql spacedOperator = new SafeSqlBuilder().append(' ').append(operator).append(' ').toSafeSql();
-        builder.append("(")
-                .joinedSqlizables(spacedOperator, conditions)
-                .append(")");
+        if (rendered != null) {
+            rendered.appendTo(builder);
+        } else {
+            render(builder);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered.toSafeSql() : Condition.super.toSafeSql();
+    }
+
+    private void render(SafeSqlBuilder builder) {
+        List<Condition> conditions = sortConditions ? ConditionOrder.sort(this.conditions) : this.conditions;
+        builder.append('(');
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                builder.append(' ').append(operator).append(' ');
+            }
+            conditions.get(i).appendTo(builder);
+        }
+        builder.append(')');
+    }
+
+    /**
+     * Returns a group of other conditions, with the operator and the options of this group.
+     */
+    ConditionGroup with(Collection<Condition> conditions) {
+        ConditionGroup group = new ConditionGroup(conditions, operator);
+        group.sortConditions = sortConditions;
+        return isFrozen() ? group.freeze() : group;
     }
 
     @Override
     public Condition negate() {
-        return new ConditionGroup(conditions.stream().map(Condition::negate).collect(Collectors.toList()), operator == LogicalOperator.AND ? LogicalOperator.OR : LogicalOperator.AND);
+        ConditionGroup negated = new ConditionGroup(conditions.stream().map(Condition::negate).collect(Collectors.toList()), operator == LogicalOperator.AND ? LogicalOperator.OR : LogicalOperator.AND);
+        negated.sortConditions = sortConditions;
+        return isFrozen() ? negated.freeze() : negated;
     }
 
     public void add(Condition condition) {
+        FreezeSupport.checkNotFrozen(this);
         if (condition instanceof ConditionGroup && ((ConditionGroup) condition).operator == operator) {
             conditions.addAll(((ConditionGroup) condition).conditions);
         } else {
@@ -46,10 +101,41 @@ public class ConditionGroup implements Condition {
         }
     }
 
+    /**
+     * Enables or disables the rendering of the conditions of this group in a canonical order, so that groups with the
+     * same conditions added in a different order render the same sql. Conditions are sorted by their sql, without
+     * their parameters.
+     *
+     * @param sort <code>true</code> to sort the conditions
+     * @return a reference to this object
+     */
+    public ConditionGroup sortConditions(boolean sort) {
+        FreezeSupport.checkNotFrozen(this);
+        this.sortConditions = sort;
+        return this;
+    }
+
+    boolean isSortConditions() {
+        return sortConditions;
+    }
+
+    @Override
+    public ConditionGroup freeze() {
+        return isFrozen() ? this : new ConditionGroup(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return rendered != null;
+    }
+
     public static Condition create(LogicalOperator operator, Condition left, Condition right, Condition... others) {
         ConditionGroup group = new ConditionGroup(operator);
         group.add(left);
         group.add(right);
+        for (Condition other : others) {
+            group.add(other);
+        }
         return group;
     }
 
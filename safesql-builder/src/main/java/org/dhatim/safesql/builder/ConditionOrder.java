@@ -0,0 +1,71 @@
+package org.dhatim.safesql.builder;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Sorts the conditions combined with <code>AND</code> or <code>OR</code> in a canonical order, so that the same
+ * conditions added in a different order render the same sql.
+ *
+ * <p>Conditions are sorted by their sql, without their parameters, so that queries differing only by their parameters
+ * still render the same sql. The sort is stable and nested groups are sorted first.
+ */
+final class ConditionOrder extends QueryTransformer {
+
+    private static final ConditionOrder INSTANCE = new ConditionOrder();
+
+    private ConditionOrder() {
+    }
+
+    static SelectQuery sort(SelectQuery query) {
+        return INSTANCE.transformSelect(query);
+    }
+
+    /**
+     * Sorts conditions by their sql.
+     *
+     * @param conditions conditions to sort
+     * @return the given list if it is already sorted, a sorted copy otherwise
+     */
+    static List<Condition> sort(List<Condition> conditions) {
+        if (conditions.size() < 2) {
+            return conditions;
+        }
+        List<Map.Entry<String, Condition>> entries = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(InternalSqlBuilder.render(condition).asSql(), condition));
+        }
+        entries.sort(Map.Entry.comparingByKey());
+        List<Condition> sorted = new ArrayList<>(conditions.size());
+        boolean changed = false;
+        for (int i = 0; i < entries.size(); i++) {
+            Condition condition = entries.get(i).getValue();
+            changed |= condition != conditions.get(i);
+            sorted.add(condition);
+        }
+        return changed ? sorted : conditions;
+    }
+
+    @Override
+    public List<Condition> transformConditions(List<Condition> conditions) {
+        return sort(super.transformConditions(conditions));
+    }
+
+    @Override
+    public SafeSqlizable visit(ConditionGroup group) {
+        SafeSqlizable result = super.visit(group);
+        if (result instanceof ConditionGroup) {
+            ConditionGroup transformed = (ConditionGroup) result;
+            List<Condition> conditions = transformed.getConditions();
+            List<Condition> sorted = sort(conditions);
+            if (sorted != conditions) {
+                return transformed.with(sorted);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,154 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Normalizes the conditions of a query tree:
+ * <ul>
+ * <li>nested groups with the same operator are flattened: <code>a AND (b AND c)</code> gives
+ * <code>a AND b AND c</code>,</li>
+ * <li>duplicated conditions of a group are removed,</li>
+ * <li>boolean constants are folded: <code>a AND TRUE</code> gives <code>a</code>, <code>a OR TRUE</code> gives
+ * <code>TRUE</code>, <code>NOT FALSE</code> gives <code>TRUE</code>,</li>
+ * <li>an empty <code>IN</code> list is <code>FALSE</code>, and an empty <code>NOT IN</code> list is
+ * <code>TRUE</code>.</li>
+ * </ul>
+ *
+ * <p>All these rules keep the three-valued logic of sql. <code>TRUE</code> conditions are removed from the
+ * <code>WHERE</code>, <code>HAVING</code> and <code>ON</code> clauses, and a clause containing a <code>FALSE</code>
+ * condition is reduced to it. An <code>ON</code> clause whose conditions are all removed is reduced to
+ * <code>TRUE</code>. Two conditions are duplicates when they render the same sql with equal parameters.
+ */
+public class ConditionSimplifier extends QueryTransformer {
+
+    public static Condition simplify(Condition condition) {
+        return new ConditionSimplifier().transformCondition(condition);
+    }
+
+    public static SelectQuery simplify(SelectQuery query) {
+        return new ConditionSimplifier().transformSelect(query);
+    }
+
+    @Override
+    public List<Condition> transformConditions(List<Condition> conditions) {
+        List<Condition> simplified = simplify(LogicalOperator.AND, conditions);
+        return sameElements(simplified, conditions) ? conditions : simplified;
+    }
+
+    @Override
+    public List<Condition> transformJoinConditions(List<Condition> conditions) {
+        List<Condition> simplified = transformConditions(conditions);
+        if (simplified.isEmpty() && !conditions.isEmpty()) {
+            // an ON clause needs a condition
+            if (conditions.size() == 1 && Boolean.TRUE.equals(constantOf(conditions.get(0)))) {
+                return conditions;
+            }
+            return Collections.singletonList(new BooleanValue(true));
+        }
+        return simplified;
+    }
+
+    @Override
+    public SafeSqlizable visit(ConditionGroup group) {
+        LogicalOperator operator = group.getOperator();
+        List<Condition> conditions = group.getConditions();
+        List<Condition> simplified = simplify(operator, conditions);
+        if (sameElements(simplified, conditions)) {
+            return group;
+        } else if (simplified.isEmpty()) {
+            // all the conditions were neutral
+            return new BooleanValue(operator == LogicalOperator.AND);
+        } else if (simplified.size() == 1) {
+            return simplified.get(0);
+        }
+        return group.with(simplified);
+    }
+
+    @Override
+    public SafeSqlizable visit(BooleanOperand operand) {
+        SafeSqlizable result = super.visit(operand);
+        if (result instanceof BooleanOperand) {
+            BooleanOperand booleanOperand = (BooleanOperand) result;
+            Boolean constant = constantOf(booleanOperand.getExpression());
+            if (constant != null) {
+                return new BooleanValue(constant != booleanOperand.isNegative());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public SafeSqlizable visit(AbstractCondition<?, ?, ?> condition) {
+        SafeSqlizable result = super.visit(condition);
+        if (result instanceof InCondition) {
+            InCondition in = (InCondition) result;
+            if (in.getRight().getLength() == 0) {
+                return new BooleanValue(in.getOperator() == RelationalOperator.NOT_IN);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Simplifies the conditions of a group.
+     *
+     * @param operator operator of the group
+     * @param conditions conditions of the group
+     * @return the remaining conditions, a single constant if the group is constant, or an empty list if all the
+     * conditions are neutral
+     */
+    private List<Condition> simplify(LogicalOperator operator, List<Condition> conditions) {
+        List<Condition> flattened = new ArrayList<>(conditions.size());
+        for (Condition condition : conditions) {
+            Condition simplified = transformCondition(condition);
+            if (simplified instanceof ConditionGroup && ((ConditionGroup) simplified).getOperator() == operator) {
+                flattened.addAll(((ConditionGroup) simplified).getConditions());
+            } else if (simplified != null) {
+                flattened.add(simplified);
+            }
+        }
+        Boolean absorbing = operator == LogicalOperator.OR;
+        List<Condition> result = new ArrayList<>(flattened.size());
+        Set<SafeSql> keys = new HashSet<>();
+        for (Condition condition : flattened) {
+            Boolean constant = constantOf(condition);
+            if (absorbing.equals(constant)) {
+                return Collections.singletonList(condition);
+            } else if (constant == null && keys.add(keyOf(condition))) {
+                result.add(condition);
+            }
+        }
+        return result;
+    }
+
+    private static Boolean constantOf(Expression expression) {
+        if (expression instanceof BooleanValue) {
+            return (Boolean) ((BooleanValue) expression).value();
+        }
+        return null;
+    }
+
+    private static SafeSql keyOf(Condition condition) {
+        // rendered sql compares its parameters deeply, like byte arrays
+        return InternalSqlBuilder.render(condition);
+    }
+
+    private static boolean sameElements(List<Condition> list, List<Condition> other) {
+        if (list.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) != other.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -22,6 +22,15 @@ public class Constant implements Operand {
         return SafeSqlUtils.fromConstant(sql);
     }
 
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append(sql);
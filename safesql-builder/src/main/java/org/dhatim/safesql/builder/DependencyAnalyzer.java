@@ -0,0 +1,267 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Finds the tables and columns read and written by a builder query, without rendering it.
+ *
+ * <p>Tables are named by their schema and name, like <code>schema.table</code>, or by their name alone when they are
+ * not qualified. Sub queries and common table expressions are analyzed too; a reference to a common table expression,
+ * where it is visible, is not a table, but the tables read by the expression are. A column is attributed to a table
+ * through its {@link Alias}, or to the single table of its query when it is not qualified. The other columns, like the
+ * columns of a sub query in the <code>FROM</code> clause, are not attributed. Raw sql, like {@link SafeSqlQuery} or
+ * templates, is not analyzed.
+ */
+public final class DependencyAnalyzer {
+
+    /**
+     * The tables and columns used by a query.
+     */
+    public static final class Dependencies {
+
+        private final Set<String> readTables;
+        private final Set<String> writtenTables;
+        private final Map<String, Set<String>> readColumns;
+        private final Map<String, Set<String>> writtenColumns;
+
+        Dependencies(Set<String> readTables, Set<String> writtenTables, Map<String, Set<String>> readColumns,
+                Map<String, Set<String>> writtenColumns) {
+            this.readTables = Collections.unmodifiableSet(readTables);
+            this.writtenTables = Collections.unmodifiableSet(writtenTables);
+            this.readColumns = Collections.unmodifiableMap(readColumns);
+            this.writtenColumns = Collections.unmodifiableMap(writtenColumns);
+        }
+
+        /**
+         * @return the tables read by the query, in their order of appearance
+         */
+        public Set<String> getReadTables() {
+            return readTables;
+        }
+
+        /**
+         * @return the tables written by the query
+         */
+        public Set<String> getWrittenTables() {
+            return writtenTables;
+        }
+
+        /**
+         * @return the columns read by the query, by table
+         */
+        public Map<String, Set<String>> getReadColumns() {
+            return readColumns;
+        }
+
+        /**
+         * @return the columns written by the query, by table
+         */
+        public Map<String, Set<String>> getWrittenColumns() {
+            return writtenColumns;
+        }
+
+        @Override
+        public String toString() {
+            return "Dependencies{read=" + readColumns + ", written=" + writtenColumns + "}";
+        }
+
+    }
+
+    /**
+     * Tables of the <code>FROM</code> clause of a query, its unqualified columns, and the common table expressions it
+     * defines.
+     */
+    private static final class Scope {
+
+        private final List<String> tables = new ArrayList<>();
+        private int others;
+        private final List<String> columns = new ArrayList<>();
+        private final Set<String> ctes = new HashSet<>();
+
+    }
+
+    private static final class Collector extends QueryTransformer {
+
+        private final Set<String> readTables = new LinkedHashSet<>();
+        private final Set<String> writtenTables = new LinkedHashSet<>();
+        private final Map<String, Set<String>> writtenColumns = new LinkedHashMap<>();
+        private final Map<Alias, String> tablesByAlias = new HashMap<>();
+        private final Map<Alias, List<String>> columnsByAlias = new LinkedHashMap<>();
+        private final Map<String, Set<String>> scopeColumns = new LinkedHashMap<>();
+        private final Deque<Scope> scopes = new ArrayDeque<>();
+
+        private void table(String schema, String table, Alias alias, boolean subQuery) {
+            Scope scope = scopes.peek();
+            if (table == null || subQuery || schema == null && isCommonTableExpression(table)) {
+                if (scope != null) {
+                    scope.others++;
+                }
+                return;
+            }
+            String name = schema == null ? table : schema + "." + table;
+            readTables.add(name);
+            if (alias != null) {
+                tablesByAlias.put(alias, name);
+            }
+            if (scope != null) {
+                scope.tables.add(name);
+            }
+        }
+
+        /**
+         * Tells whether a name refers to a common table expression visible in the current query: one defined by the
+         * query or by an enclosing query, before the reference.
+         */
+        private boolean isCommonTableExpression(String name) {
+            for (Scope scope : scopes) {
+                if (scope.ctes.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void column(Alias alias, String name) {
+            if (alias != null) {
+                columnsByAlias.computeIfAbsent(alias, a -> new ArrayList<>()).add(name);
+            } else if (!scopes.isEmpty()) {
+                scopes.peek().columns.add(name);
+            }
+        }
+
+        @Override
+        public SafeSqlizable visit(Column column) {
+            column(column.getAlias(), column.getName());
+            return column;
+        }
+
+        @Override
+        public SafeSqlizable visit(SelectQuery.OrderElement order) {
+            column(order.getAlias(), order.getColumn());
+            return order;
+        }
+
+        @Override
+        public SafeSqlizable visit(SelectQuery query) {
+            Scope scope = new Scope();
+            scopes.push(scope);
+            super.visit(query);
+            scopes.pop();
+            if (scope.tables.size() == 1 && scope.others == 0) {
+                scopeColumns.computeIfAbsent(scope.tables.get(0), t -> new LinkedHashSet<>()).addAll(scope.columns);
+            }
+            return query;
+        }
+
+        @Override
+        public SafeSqlizable visit(CommonTableExpression cte) {
+            // the name is visible after the body, in the following expressions and in the query
+            super.visit(cte);
+            Scope scope = scopes.peek();
+            if (scope != null) {
+                scope.ctes.add(cte.getName());
+            }
+            return cte;
+        }
+
+        @Override
+        public SafeSqlizable visit(From from) {
+            table(from.getSchema(), from.getTableName(), from.getAlias(), from.getQuery() != null);
+            return super.visit(from);
+        }
+
+        @Override
+        public SafeSqlizable visit(Jointure jointure) {
+            table(jointure.getSchema(), jointure.getTableName(), jointure.getAlias(), false);
+            return super.visit(jointure);
+        }
+
+        @Override
+        public SafeSqlizable visit(InsertQuery query) {
+            String name = query.getSchema() == null ? query.getTableName() : query.getSchema() + "." + query.getTableName();
+            writtenTables.add(name);
+            writtenColumns.computeIfAbsent(name, t -> new LinkedHashSet<>()).addAll(query.getColumns());
+            scopes.push(new Scope());
+            super.visit(query);
+            scopes.pop();
+            return query;
+        }
+
+        @Override
+        public SafeSqlizable visitOther(SafeSqlizable node) {
+            if (node instanceof Template.TemplateOperand) {
+                for (Operand parameter : ((Template.TemplateOperand) node).getParameters()) {
+                    transformOperand(parameter);
+                }
+            }
+            return node;
+        }
+
+        Dependencies result() {
+            Map<String, Set<String>> readColumns = new LinkedHashMap<>();
+            for (String table : readTables) {
+                readColumns.put(table, new LinkedHashSet<>());
+            }
+            for (Map.Entry<String, Set<String>> entry : scopeColumns.entrySet()) {
+                Set<String> columns = readColumns.get(entry.getKey());
+                if (columns != null) {
+                    columns.addAll(entry.getValue());
+                }
+            }
+            for (Map.Entry<Alias, List<String>> entry : columnsByAlias.entrySet()) {
+                String table = tablesByAlias.get(entry.getKey());
+                Set<String> columns = table == null ? null : readColumns.get(table);
+                if (columns != null) {
+                    columns.addAll(entry.getValue());
+                }
+            }
+            Map<String, Set<String>> read = new LinkedHashMap<>();
+            for (Map.Entry<String, Set<String>> entry : readColumns.entrySet()) {
+                read.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+            }
+            Map<String, Set<String>> written = new LinkedHashMap<>();
+            for (Map.Entry<String, Set<String>> entry : writtenColumns.entrySet()) {
+                written.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+            }
+            return new Dependencies(new LinkedHashSet<>(read.keySet()), new LinkedHashSet<>(writtenTables), read, written);
+        }
+
+    }
+
+    private DependencyAnalyzer() {
+    }
+
+    /**
+     * Analyzes a query, or any part of a query tree.
+     *
+     * @param node query to analyze
+     * @return the tables and columns used by the query
+     */
+    public static Dependencies analyze(SafeSqlizable node) {
+        Collector collector = new Collector();
+        if (node instanceof Expression) {
+            ((Expression) node).accept(collector);
+        } else if (node instanceof InsertQuery) {
+            collector.transformInsert((InsertQuery) node);
+        } else if (node instanceof From) {
+            collector.transformFrom((From) node);
+        } else if (node instanceof Jointure) {
+            collector.transformJointure((Jointure) node);
+        } else if (node instanceof CommonTableExpression) {
+            collector.transformCommonTableExpression((CommonTableExpression) node);
+        }
+        return collector.result();
+    }
+
+}
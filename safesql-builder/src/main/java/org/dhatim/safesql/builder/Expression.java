@@ -4,4 +4,15 @@ import org.dhatim.safesql.SafeSqlizable;
 
 public interface Expression extends SafeSqlizable {
 
+    /**
+     * Calls the method of the visitor matching the type of this expression.
+     *
+     * @param <R> type of the result of the visitor
+     * @param visitor visitor to call
+     * @return result of the visitor
+     */
+    default <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visitOther(this);
+    }
+
 }
@@ -0,0 +1,95 @@
+package org.dhatim.safesql.builder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list that can be forked in constant time. The list and its forks share the same elements until one of them is
+ * modified, only then the modified list copies its elements.
+ *
+ * <p>Forking marks the source list as shared, so concurrent forks of a list that may be modified are not safe. Fork
+ * frozen queries instead.
+ *
+ * @param <E> type of elements
+ */
+final class ForkableList<E> extends AbstractList<E> implements RandomAccess {
+
+    private List<E> elements;
+    private boolean shared;
+
+    ForkableList() {
+        this.elements = new ArrayList<>();
+    }
+
+    private ForkableList(List<E> elements) {
+        this.elements = elements;
+        this.shared = true;
+    }
+
+    /**
+     * Returns a list with the same elements as the given one, sharing them until one of the lists is modified.
+     *
+     * @param <E> type of elements
+     * @param list list to fork, must not be modified afterwards if it is not a {@code ForkableList}
+     * @return a new list
+     */
+    static <E> ForkableList<E> fork(List<E> list) {
+        if (list instanceof ForkableList) {
+            ForkableList<E> other = (ForkableList<E>) list;
+            if (!other.shared) {
+                other.shared = true;
+            }
+            return new ForkableList<>(other.elements);
+        }
+        return new ForkableList<>(list);
+    }
+
+    private List<E> writable() {
+        if (shared) {
+            elements = new ArrayList<>(elements);
+            shared = false;
+        }
+        return elements;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        return writable().set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        writable().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        modCount++;
+        return writable().remove(index);
+    }
+
+    @Override
+    public void clear() {
+        if (shared) {
+            elements = new ArrayList<>();
+            shared = false;
+        } else {
+            elements.clear();
+        }
+        modCount++;
+    }
+
+}
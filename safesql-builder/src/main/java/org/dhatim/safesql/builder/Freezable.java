@@ -0,0 +1,37 @@
+package org.dhatim.safesql.builder;
+
+/**
+ * A mutable builder node that can be turned into an immutable copy.
+ *
+ * <p>A frozen node and its freezable children cannot be modified anymore: their modification methods throw
+ * {@link IllegalStateException}. Its sql is rendered once when it is frozen, and only its final fields are used
+ * afterwards, so a frozen node can be kept in a static constant and shared between threads. Nodes that are not
+ * freezable, like {@link Column}, {@link Call} or {@link InCondition}, are immutable themselves: freezing their parent
+ * freezes their children, the subqueries and <code>CASE</code> expressions they hold, and rebuilds them around these
+ * frozen children. An {@link InsertQuery} is not frozen.
+ *
+ * @param <T> type of the frozen copy
+ */
+public interface Freezable<T> {
+
+    /**
+     * Returns an immutable copy of this node, or this node if it is already frozen.
+     *
+     * @return a frozen copy of this node
+     */
+    T freeze();
+
+    boolean isFrozen();
+
+    /**
+     * Freezes the given node if it is {@link Freezable}, or the freezable nodes it holds otherwise.
+     *
+     * @param <E> type of the node
+     * @param node node to freeze, may be <code>null</code>
+     * @return a frozen copy of the node, or the node itself if it holds no node to freeze
+     */
+    static <E> E freeze(E node) {
+        return FreezeSupport.freeze(node);
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final class FreezeSupport {
+
+    /**
+     * Freezes the freezable nodes found under the nodes that are not freezable, like the arguments of a
+     * {@link Call} or the elements of an <code>IN</code> list, rebuilding these nodes when a child is frozen.
+     */
+    private static final QueryTransformer FREEZER = new QueryTransformer() {
+
+        @Override
+        public Operand transformOperand(Operand operand) {
+            return operand instanceof Freezable ? (Operand) ((Freezable<?>) operand).freeze() : super.transformOperand(operand);
+        }
+
+        @Override
+        public Condition transformCondition(Condition condition) {
+            return condition instanceof Freezable ? (Condition) ((Freezable<?>) condition).freeze() : super.transformCondition(condition);
+        }
+
+        @Override
+        public SqlQuery transformQuery(SqlQuery query) {
+            return query instanceof Freezable ? (SqlQuery) ((Freezable<?>) query).freeze() : super.transformQuery(query);
+        }
+
+    };
+
+    private FreezeSupport() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <E> E freeze(E node) {
+        if (node instanceof Freezable) {
+            return (E) ((Freezable<?>) node).freeze();
+        } else if (node instanceof Expression) {
+            return (E) ((Expression) node).accept(FREEZER);
+        }
+        return node;
+    }
+
+    static <E> List<E> freezeAll(List<E> list) {
+        if (list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<E> copy = new ArrayList<>(list.size());
+        for (E element : list) {
+            copy.add(freeze(element));
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    static void checkNotFrozen(Freezable<?> node) {
+        checkNotFrozen(node, node.isFrozen());
+    }
+
+    static void checkNotFrozen(Object node, boolean frozen) {
+        if (frozen) {
+            throw new IllegalStateException(node.getClass().getSimpleName() + " is frozen and cannot be modified");
+        }
+    }
+
+}
@@ -3,10 +3,11 @@ package org.dhatim.safesql.builder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
 
-public abstract class From extends AbstractHasJointure implements SafeSqlizable {
+public abstract class From extends AbstractHasJointure implements SafeSqlizable, Freezable<From> {
 
     private static class TableFrom extends From {
 
@@ -19,6 +20,27 @@ public abstract class From extends AbstractHasJointure implements SafeSqlizable
             this.tableName = tableName;
         }
 
+        private TableFrom(TableFrom other) {
+            super(other);
+            this.schema = other.schema;
+            this.tableName = other.tableName;
+        }
+
+        @Override
+        public From freeze() {
+            return isFrozen() ? this : new TableFrom(this);
+        }
+
+        @Override
+        public String getSchema() {
+            return schema;
+        }
+
+        @Override
+        public String getTableName() {
+            return tableName;
+        }
+
         @Override
         protected void render(SafeSqlBuilder sb) {
             if (schema != null) {
@@ -38,6 +60,21 @@ public abstract class From extends AbstractHasJointure implements SafeSqlizable
             this.query = query;
         }
 
+        private SubQueryFrom(SubQueryFrom other) {
+            super(other);
+            this.query = Freezable.freeze(other.query);
+        }
+
+        @Override
+        public From freeze() {
+            return isFrozen() ? this : new SubQueryFrom(this);
+        }
+
+        @Override
+        public SqlQuery getQuery() {
+            return query;
+        }
+
         @Override
         protected void render(SafeSqlBuilder sb) {
             sb.append('(');
@@ -49,26 +86,83 @@ public abstract class From extends AbstractHasJointure implements SafeSqlizable
 
     private final Alias alias;
     private final List<String> columnAliases;
+    private final FrozenSql rendered;
 
     private From(Alias alias, List<String> columnAliases) {
         this.alias = alias;
         this.columnAliases = new ArrayList<>(columnAliases);
+        this.rendered = null;
+    }
+
+    private From(From other) {
+        super(other);
+        this.alias = other.alias;
+        this.columnAliases = other.columnAliases;
+        this.rendered = FrozenSql.render(other, other::renderAll);
     }
 
     public Alias getAlias() {
         return alias;
     }
 
+    public List<String> getColumnAliases() {
+        return Collections.unmodifiableList(columnAliases);
+    }
+
+    /**
+     * Returns the schema of the table, <code>null</code> if it has no schema or if this is a sub query.
+     *
+     * @return the schema of the table
+     */
+    public String getSchema() {
+        return null;
+    }
+
+    /**
+     * Returns the name of the table, <code>null</code> if this is a sub query.
+     *
+     * @return the name of the table
+     */
+    public String getTableName() {
+        return null;
+    }
+
+    /**
+     * Returns the sub query, <code>null</code> if this is a table.
+     *
+     * @return the sub query
+     */
+    public SqlQuery getQuery() {
+        return null;
+    }
+
     protected abstract void render(SafeSqlBuilder sb);
 
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
+        if (rendered != null) {
+            rendered.appendTo(builder);
+        } else {
+            renderAll(builder);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered.toSafeSql() : SafeSqlizable.super.toSafeSql();
+    }
+
+    private void renderAll(SafeSqlBuilder builder) {
         render(builder);
         if (alias != null) {
             builder.append(" ").append(alias);
         }
         if (!columnAliases.isEmpty()) {
-            builder.append(" ").joinedSqlizables(", ", "(", ")", columnAliases.stream().map(Identifier::new));
+            builder.append(" (").joined(columnAliases, b -> b.append(", "), SafeSqlBuilder::identifier).append(')');
         }
         List<Jointure> jointures = getJointures();
         if (!jointures.isEmpty()) {
@@ -0,0 +1,50 @@
+package org.dhatim.safesql.builder;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlBuilder;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Sql of a frozen node, rendered once. The lists padded by an {@link InListPaddingCounter} it contains are counted each
+ * time it is used instead of rendering the node again.
+ */
+final class FrozenSql {
+
+    private final SafeSql sql;
+    private final List<InCondition> countedLists;
+
+    private FrozenSql(SafeSql sql, List<InCondition> countedLists) {
+        this.sql = sql;
+        this.countedLists = countedLists;
+    }
+
+    /**
+     * Renders a node.
+     *
+     * @param node node whose padded lists are counted
+     * @param renderer rendering of the node
+     * @return the rendered sql of the node
+     */
+    static FrozenSql render(SafeSqlizable node, Consumer<SafeSqlBuilder> renderer) {
+        SafeSqlBuilder sb = new InternalSqlBuilder();
+        renderer.accept(sb);
+        return new FrozenSql(sb.toSafeSql(), InListPaddingCounter.countedLists(node));
+    }
+
+    List<InCondition> getCountedLists() {
+        return countedLists;
+    }
+
+    void appendTo(SafeSqlBuilder builder) {
+        builder.append(sql);
+        InListPaddingCounter.count(builder, countedLists);
+    }
+
+    SafeSql toSafeSql() {
+        InListPaddingCounter.count(null, countedLists);
+        return sql;
+    }
+
+}
@@ -1,16 +1,214 @@
 package org.dhatim.safesql.builder;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.dhatim.safesql.PGArrayParameter;
+import org.dhatim.safesql.SafeSqlBuilder;
 
 public class InCondition extends AbstractCondition<Operand, RelationalOperator, Row> {
 
+    private static final Map<Class<?>, String> ARRAY_TYPES = new HashMap<>();
+
+    /**
+     * Type names written in the sql: words, an optional schema, and an optional precision, like <code>int8</code>,
+     * <code>timestamp with time zone</code> or <code>numeric(10, 2)</code>.
+     */
+    private static final Pattern TYPE_NAME = Pattern.compile(
+            "[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?( [A-Za-z_][A-Za-z0-9_$]*)*( ?\\(\\d+(, ?\\d+)?\\))?");
+
+    static {
+        ARRAY_TYPES.put(Short.class, "int2");
+        ARRAY_TYPES.put(Integer.class, "int4");
+        ARRAY_TYPES.put(Long.class, "int8");
+        ARRAY_TYPES.put(Float.class, "float4");
+        ARRAY_TYPES.put(Double.class, "float8");
+        ARRAY_TYPES.put(BigDecimal.class, "numeric");
+        ARRAY_TYPES.put(Boolean.class, "bool");
+        ARRAY_TYPES.put(String.class, "text");
+        ARRAY_TYPES.put(UUID.class, "uuid");
+        ARRAY_TYPES.put(LocalDate.class, "date");
+        ARRAY_TYPES.put(java.sql.Date.class, "date");
+        ARRAY_TYPES.put(LocalDateTime.class, "timestamp");
+        ARRAY_TYPES.put(OffsetDateTime.class, "timestamptz");
+        ARRAY_TYPES.put(Timestamp.class, "timestamptz");
+    }
+
+    /**
+     * Sql type of the elements of the array parameter, <code>null</code> to render a list of parameters.
+     */
+    private final String arrayType;
+
+    private final InListPadding padding;
+
     InCondition(Operand left, boolean notIn, List<Operand> elements) {
+        this(left, notIn, elements, null, null);
+    }
+
+    private InCondition(Operand left, boolean notIn, List<Operand> elements, String arrayType, InListPadding padding) {
         super(left, notIn ? RelationalOperator.NOT_IN : RelationalOperator.IN, new Row(elements));
+        this.arrayType = arrayType;
+        this.padding = padding;
+    }
+
+    private boolean isNotIn() {
+        return getOperator() == RelationalOperator.NOT_IN;
     }
-    
+
+    /**
+     * Returns a copy of this condition with other operands, keeping its rendering options.
+     */
+    InCondition with(Operand left, List<Operand> elements) {
+        return new InCondition(left, isNotIn(), elements, arrayType, padding);
+    }
+
+    /**
+     * Returns the sql type of the elements of the array parameter this condition is rendered with.
+     *
+     * @return the sql type of the elements, or <code>null</code> if this condition is rendered as a list
+     */
+    public String getArrayType() {
+        return arrayType;
+    }
+
+    /**
+     * Returns a copy of this condition rendered with a single array parameter: <code>x = ANY(?::type[])</code> instead
+     * of <code>x IN (?, ?, ...)</code>, and <code>x &lt;&gt; ALL(?::type[])</code> instead of <code>x NOT IN (?, ?,
+     * ...)</code>. All the lists then share the same sql whatever their length. A list containing other operands than
+     * {@link Value}s is still rendered as a list.
+     *
+     * <p>The type is written in the sql as is, so it only accepts type names: words, an optional schema and an optional
+     * precision.
+     *
+     * @param sqlType sql type of the elements, like <code>int8</code> or <code>text</code>
+     * @return a copy of this condition rendered with an array parameter
+     * @throws IllegalArgumentException if the type is not a type name
+     */
+    public InCondition asArray(String sqlType) {
+        checkArrayType(sqlType);
+        return new InCondition(getLeft(), isNotIn(), getRight().getElements(), sqlType, padding);
+    }
+
+    /**
+     * Returns a copy of this condition rendered with a single array parameter, whose type is deduced from the values
+     * of the list.
+     *
+     * @return a copy of this condition rendered with an array parameter, or this condition if the list is empty, or
+     * contains other operands than values, or values of different or unknown types
+     * @see #asArray(String)
+     */
+    public InCondition asArray() {
+        String type = inferArrayType();
+        return type == null ? this : asArray(type);
+    }
+
+    /**
+     * Returns the strategy padding the list of this condition.
+     *
+     * @return the padding strategy, or <code>null</code> if the list is not padded
+     */
+    public InListPadding getPadding() {
+        return padding;
+    }
+
+    /**
+     * Returns a copy of this condition whose list is padded by repeating its last element, so that lists of different
+     * lengths render the same sql. A condition rendered with an array parameter is not padded.
+     *
+     * @param padding padding strategy, or <code>null</code> to not pad the list
+     * @return a copy of this condition whose list is padded
+     * @see InListPadding#powersOfTwo(int)
+     */
+    public InCondition padded(InListPadding padding) {
+        return new InCondition(getLeft(), isNotIn(), getRight().getElements(), arrayType, padding);
+    }
+
+    static void checkArrayType(String sqlType) {
+        if (sqlType == null || !TYPE_NAME.matcher(sqlType).matches()) {
+            throw new IllegalArgumentException("Invalid sql type: " + sqlType);
+        }
+    }
+
+    private String inferArrayType() {
+        String type = null;
+        for (Operand element : getRight().getElements()) {
+            if (!(element instanceof Value)) {
+                return null;
+            }
+            Object value = ((Value) element).value();
+            if (value != null) {
+                String valueType = ARRAY_TYPES.get(value.getClass());
+                if (valueType == null || (type != null && !type.equals(valueType))) {
+                    return null;
+                }
+                type = valueType;
+            }
+        }
+        return type;
+    }
+
+    private boolean isValueOnly() {
+        for (Operand element : getRight().getElements()) {
+            if (!(element instanceof Value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the list of this condition is rendered as a single array parameter
+     */
+    boolean isArray() {
+        return arrayType != null && isValueOnly();
+    }
+
+    /**
+     * @return <code>true</code> if the list of this condition is rendered padded by its strategy
+     */
+    boolean isPadded() {
+        return padding != null && getRight().getLength() > 0 && !isArray();
+    }
+
+    @Override
+    public void appendTo(SafeSqlBuilder builder) {
+        if (isArray()) {
+            List<Operand> elements = getRight().getElements();
+            Object[] values = new Object[elements.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ((Value) elements.get(i)).value();
+            }
+            builder.append(getLeft())
+                    .append(isNotIn() ? " <> ALL(" : " = ANY(")
+                    .param(new PGArrayParameter<>(arrayType, values))
+                    .append("::").append(arrayType).append("[])");
+        } else if (padding != null && getRight().getLength() > 0) {
+            List<Operand> elements = getRight().getElements();
+            int size = elements.size();
+            int paddedSize = padding.paddedSize(size);
+            InListPaddingCounter.count(builder, padding, size, paddedSize);
+            builder.append(getLeft()).append(" ").append(getOperator()).append(" (")
+                    .joinedSqlizables(", ", elements);
+            Operand last = elements.get(size - 1);
+            for (int i = size; i < paddedSize; i++) {
+                builder.append(", ").append(last);
+            }
+            builder.append(")");
+        } else {
+            super.appendTo(builder);
+        }
+    }
+
     @Override
     public Condition negate() {
-        return new InCondition(getLeft(), getOperator() == RelationalOperator.IN, getRight().getElements());
+        return new InCondition(getLeft(), !isNotIn(), getRight().getElements(), arrayType, padding);
     }
-    
+
 }
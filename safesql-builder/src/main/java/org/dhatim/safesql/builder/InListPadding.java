@@ -0,0 +1,44 @@
+package org.dhatim.safesql.builder;
+
+/**
+ * Strategy padding the lists of an <code>IN</code> condition, so that lists of different lengths render the same sql.
+ * The lists are padded by repeating their last element, which does not change the result of the condition.
+ *
+ * @see InCondition#padded(InListPadding)
+ * @see InListPaddingCounter
+ */
+@FunctionalInterface
+public interface InListPadding {
+
+    /**
+     * Returns the length a list must be padded to.
+     *
+     * @param size length of the list, greater than zero
+     * @return the length of the padded list, lists are never truncated if it is lower than <code>size</code>
+     */
+    int paddedSize(int size);
+
+    /**
+     * Pads the lists to the next power of two: 1, 2, 4, 8... Lists longer than <code>max</code> are not padded. With a
+     * maximum of 1024, the lists of up to 1024 elements render at most 11 different sql.
+     *
+     * @param max maximum length of a padded list
+     * @return a strategy padding the lists to the next power of two
+     */
+    static InListPadding powersOfTwo(int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be positive: " + max);
+        }
+        return size -> {
+            if (size > max) {
+                return size;
+            }
+            int padded = Integer.highestOneBit(size);
+            if (padded < size) {
+                padded <<= 1;
+            }
+            return Math.min(padded, max);
+        };
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.dhatim.safesql.SafeSqlBuilder;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Padding strategy counting the lists padded by another strategy, and the number of different list lengths it saved.
+ * It can be shared by all the queries of an application.
+ *
+ * <p>A list is counted each time it is rendered padded, whether its strategy is set by
+ * {@link InCondition#padded(InListPadding)} or by {@link SelectQuery#inListPadding(InListPadding)}, and whether it is
+ * rendered by its query or by an enclosing query. The sql rendered to sort or compare conditions, or cached when a node
+ * is frozen, is not counted: the lists of a frozen node are counted each time its cached sql is used. At most
+ * {@value #MAX_SIZES} distinct lengths are tracked for the shape counters.
+ */
+public final class InListPaddingCounter implements InListPadding {
+
+    static final int MAX_SIZES = 1024;
+
+    private final InListPadding delegate;
+
+    private final LongAdder lists = new LongAdder();
+
+    private final LongAdder paddedLists = new LongAdder();
+
+    private final LongAdder addedElements = new LongAdder();
+
+    private final Set<Integer> sizes = ConcurrentHashMap.newKeySet();
+
+    private final Set<Integer> paddedSizes = ConcurrentHashMap.newKeySet();
+
+    public InListPaddingCounter(InListPadding delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int paddedSize(int size) {
+        return delegate.paddedSize(size);
+    }
+
+    private void count(int size, int padded) {
+        lists.increment();
+        if (padded > size) {
+            paddedLists.increment();
+            addedElements.add(padded - size);
+        }
+        if (sizes.size() < MAX_SIZES) {
+            sizes.add(size);
+        }
+        if (paddedSizes.size() < MAX_SIZES) {
+            paddedSizes.add(padded);
+        }
+    }
+
+    /**
+     * Counts a list rendered padded to a size, unless it is rendered by an {@link InternalSqlBuilder}.
+     */
+    static void count(SafeSqlBuilder builder, InListPadding padding, int size, int padded) {
+        if (padding instanceof InListPaddingCounter && !(builder instanceof InternalSqlBuilder)) {
+            ((InListPaddingCounter) padding).count(size, Math.max(size, padded));
+        }
+    }
+
+    /**
+     * Counts lists rendered padded, unless they are rendered by an {@link InternalSqlBuilder}.
+     *
+     * @param builder builder the lists are rendered to, <code>null</code> to count them
+     * @param lists lists padded by a counter
+     */
+    static void count(SafeSqlBuilder builder, List<InCondition> lists) {
+        for (InCondition in : lists) {
+            int size = in.getRight().getLength();
+            count(builder, in.getPadding(), size, in.getPadding().paddedSize(size));
+        }
+    }
+
+    /**
+     * Returns the lists of a node padded by a counter, as the node is rendered.
+     *
+     * @param node a node, with the render options of its queries applied
+     * @return the padded lists, in no particular order
+     */
+    static List<InCondition> countedLists(SafeSqlizable node) {
+        List<InCondition> result = new ArrayList<>();
+        QueryTransformer collector = new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(AbstractCondition<?, ?, ?> condition) {
+                if (condition instanceof InCondition) {
+                    InCondition in = (InCondition) condition;
+                    if (in.getPadding() instanceof InListPaddingCounter && in.isPadded()) {
+                        result.add(in);
+                    }
+                }
+                return super.visit(condition);
+            }
+
+            @Override
+            public SafeSqlizable visit(SelectQuery query) {
+                // the lists of a sub query are rendered with its own render options
+                result.addAll(query.countedLists());
+                return query;
+            }
+        };
+        if (node instanceof From) {
+            collector.transformFrom((From) node);
+        } else if (node instanceof Jointure) {
+            collector.transformJointure((Jointure) node);
+        } else if (node instanceof SelectQuery) {
+            // the render options of the query itself are already applied
+            ((SelectQuery) node).transform(collector);
+        } else if (node instanceof Expression) {
+            ((Expression) node).accept(collector);
+        }
+        return result.isEmpty() ? Collections.emptyList() : result;
+    }
+
+    /**
+     * @return the number of lists rendered with this strategy
+     */
+    public long getLists() {
+        return lists.sum();
+    }
+
+    /**
+     * @return the number of lists which have been padded
+     */
+    public long getPaddedLists() {
+        return paddedLists.sum();
+    }
+
+    /**
+     * @return the number of elements added to the padded lists
+     */
+    public long getAddedElements() {
+        return addedElements.sum();
+    }
+
+    /**
+     * @return the number of different list lengths rendered, up to {@value #MAX_SIZES}
+     */
+    public int getShapes() {
+        return paddedSizes.size();
+    }
+
+    /**
+     * @return the number of different list lengths that would have been rendered without padding, minus the number
+     * of lengths actually rendered
+     */
+    public int getSavedShapes() {
+        return sizes.size() - paddedSizes.size();
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public void reset() {
+        lists.reset();
+        paddedLists.reset();
+        addedElements.reset();
+        sizes.clear();
+        paddedSizes.clear();
+    }
+
+}
@@ -2,6 +2,7 @@ package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
@@ -28,6 +29,34 @@ public class InsertQuery implements SafeSqlizable {
         this(schema, tableName, Arrays.asList(columns), query);
     }
 
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public SqlQuery getQuery() {
+        return query;
+    }
+
+    public List<CommonTableExpression> getCommonTableExpressions() {
+        return Collections.unmodifiableList(ctes);
+    }
+
+    void addCommonTableExpressions(List<CommonTableExpression> others) {
+        ctes.addAll(others);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         if (!ctes.isEmpty()) {
@@ -40,7 +69,7 @@ public class InsertQuery implements SafeSqlizable {
             builder.identifier(schema).append('.');
         }
         builder.identifier(tableName).append(' ');
-        builder.joinedSqlizables(", ", "(", ")", columns.stream().map(Identifier::new));
+        builder.append('(').joined(columns, b -> b.append(", "), SafeSqlBuilder::identifier).append(')');
         builder.append(' ');
         query.appendTo(builder);
     }
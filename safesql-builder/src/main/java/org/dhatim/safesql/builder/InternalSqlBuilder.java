@@ -0,0 +1,19 @@
+package org.dhatim.safesql.builder;
+
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlBuilder;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Builder of sql rendered to be cached or compared, not executed: the lists padded by an {@link InListPaddingCounter}
+ * are not counted when they are rendered with it.
+ */
+final class InternalSqlBuilder extends SafeSqlBuilder {
+
+    static SafeSql render(SafeSqlizable node) {
+        InternalSqlBuilder sb = new InternalSqlBuilder();
+        node.appendTo(sb);
+        return sb.toSafeSql();
+    }
+
+}
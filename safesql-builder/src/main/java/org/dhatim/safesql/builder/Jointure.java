@@ -1,39 +1,93 @@
 package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
 
-public class Jointure extends AbstractHasJointure implements WhereClause, SafeSqlizable {
+public class Jointure extends AbstractHasJointure implements WhereClause, SafeSqlizable, Freezable<Jointure> {
 
-    private final List<Condition> conditions = new ArrayList<>();
+    private final List<Condition> conditions;
     private final String tableName;
     private final Alias alias;
     private final JointureType type;
     private final String schema;
+    private final FrozenSql rendered;
 
     Jointure(JointureType type, String schema, String tableName, Alias alias) {
+        this.conditions = new ArrayList<>();
         this.type = type;
         this.schema = schema;
         this.tableName = tableName;
         this.alias = alias;
+        this.rendered = null;
+    }
+
+    private Jointure(Jointure other) {
+        super(other);
+        this.conditions = FreezeSupport.freezeAll(other.conditions);
+        this.type = other.type;
+        this.schema = other.schema;
+        this.tableName = other.tableName;
+        this.alias = other.alias;
+        this.rendered = FrozenSql.render(this, this::render);
     }
 
     public JointureType getType() {
         return type;
     }
 
+    public String getSchema() {
+        return schema;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public Alias getAlias() {
+        return alias;
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
     @Override
     public Jointure and(Condition condition) {
         Objects.requireNonNull(condition);
+        FreezeSupport.checkNotFrozen(this);
         conditions.add(condition);
         return this;
     }
 
+    @Override
+    public Jointure freeze() {
+        return isFrozen() ? this : new Jointure(this);
+    }
+
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder sb) {
+        if (rendered != null) {
+            rendered.appendTo(sb);
+        } else {
+            render(sb);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered.toSafeSql() : SafeSqlizable.super.toSafeSql();
+    }
+
+    private void render(SafeSqlBuilder sb) {
         sb.append(type).append(" ");
         if (hasJointures()) {
             sb.append("(");
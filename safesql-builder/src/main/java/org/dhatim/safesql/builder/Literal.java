@@ -33,6 +33,20 @@ public class Literal implements Operand {
         return value == null ? NULL_LITERAL : new Literal(value);
     }
 
+    /**
+     * Returns the value of this literal, <code>null</code> for the <code>NULL</code> literal.
+     *
+     * @return the value of this literal
+     */
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.literal(value);
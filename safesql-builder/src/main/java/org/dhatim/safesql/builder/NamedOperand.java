@@ -1,6 +1,5 @@
 package org.dhatim.safesql.builder;
 
-import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 
 public class NamedOperand implements Operand {
@@ -22,12 +21,8 @@ public class NamedOperand implements Operand {
     }
 
     @Override
-    public SafeSql toSafeSql() {
-        return new SafeSqlBuilder()
-                .append(operand)
-                .append(" AS ")
-                .append(alias)
-                .toSafeSql();
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 
     @Override
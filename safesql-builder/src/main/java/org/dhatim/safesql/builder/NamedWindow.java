@@ -16,15 +16,30 @@ public class NamedWindow extends Window {
         this.name = name;
     }
 
+    private NamedWindow(NamedWindow other) {
+        super(other);
+        this.name = other.name;
+    }
+
     public String getName() {
         return name;
     }
 
     @Override
-    public void appendTo(SafeSqlBuilder builder) {
+    public NamedWindow freeze() {
+        return isFrozen() ? this : new NamedWindow(this);
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    protected void render(SafeSqlBuilder builder) {
         builder.identifier(name)
             .append(" AS ");
-        super.appendTo(builder);
+        super.render(builder);
     }
 
     @Override
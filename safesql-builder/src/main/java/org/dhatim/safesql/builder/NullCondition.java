@@ -12,6 +12,24 @@ public class NullCondition implements Condition {
         this.nullTest = nullTest;
     }
 
+    public Operand getOperand() {
+        return operand;
+    }
+
+    /**
+     * Returns <code>true</code> for an <code>IS NULL</code> condition, <code>false</code> for <code>IS NOT NULL</code>.
+     *
+     * @return <code>true</code> if this condition tests that the operand is null
+     */
+    public boolean isNullTest() {
+        return nullTest;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder sb) {
         sb.append(operand).append(" IS " );
@@ -2,14 +2,30 @@ package org.dhatim.safesql.builder;
 
 import org.dhatim.safesql.SafeSqlBuilder;
 
-public class Over implements Operand {
+public class Over implements Operand, Freezable<Over> {
 
     private final Call windowFunction;
     private final Window window;
+    private final boolean frozen;
 
     public Over(Call windowFunction, Window window) {
+        this(windowFunction, window, false);
+    }
+
+    private Over(Call windowFunction, Window window, boolean frozen) {
         this.windowFunction = windowFunction;
         this.window = window;
+        this.frozen = frozen;
+    }
+
+    @Override
+    public Over freeze() {
+        return isFrozen() ? this : new Over(Freezable.freeze(windowFunction), window.freeze(), true);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return frozen;
     }
 
     public Window getWindow() {
@@ -20,6 +36,11 @@ public class Over implements Operand {
         return windowFunction;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder sb) {
         sb.append(windowFunction);
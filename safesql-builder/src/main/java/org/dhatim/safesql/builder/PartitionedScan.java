@@ -0,0 +1,277 @@
+package org.dhatim.safesql.builder;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.dhatim.safesql.SafeSql;
+
+/**
+ * Splits a query into disjoint partitions, executed concurrently and merged.
+ *
+ * <p>Each partition is a copy of the query with an additional condition on a key: a range of its values, see
+ * {@link #byRange(SelectQuery, Operand, List)}, or the remainder of its division, see
+ * {@link #byModulus(SelectQuery, Operand, int)}. Rows whose key is <code>NULL</code> also belong to one partition, so
+ * each row of the query belongs to exactly one partition. Aggregates, <code>DISTINCT</code> and window functions are
+ * computed by partition: they should only be used when their groups do not cross partitions.
+ *
+ * <p>The partitions are executed on an executor given by the caller, which bounds their concurrency, like a
+ * {@link java.util.concurrent.ForkJoinPool} or an executor of virtual threads.
+ */
+public final class PartitionedScan {
+
+    private static final class Cursor<R> {
+
+        private final List<? extends R> rows;
+        private final int partition;
+        private int index;
+
+        Cursor(List<? extends R> rows, int partition) {
+            this.rows = rows;
+            this.partition = partition;
+        }
+
+        R current() {
+            return rows.get(index);
+        }
+
+    }
+
+    private final List<SelectQuery> partitions;
+    private final boolean ordered;
+
+    private PartitionedScan(List<SelectQuery> partitions, boolean ordered) {
+        this.partitions = Collections.unmodifiableList(partitions);
+        this.ordered = ordered;
+    }
+
+    /**
+     * Splits a query by ranges of a key. Given <code>n</code> bounds, the query is split into <code>n + 1</code>
+     * partitions: <code>key &lt; b1</code>, <code>b1 &lt;= key &lt; b2</code>, ..., <code>key &gt;= bn</code>. Rows
+     * whose key is <code>NULL</code> belong to the last partition, since nulls sort last in ascending order.
+     *
+     * <p>If the query is ordered first by the key column, the partitions are listed in this order, reversed for a
+     * descending order, so the concatenation of their rows is ordered too.
+     *
+     * @param query query to split
+     * @param key operand partitioning the rows, like a column
+     * @param bounds values of the key separating the partitions, in strictly ascending order
+     * @return the partitions of the query
+     * @throws IllegalArgumentException if the bounds are not in strictly ascending order
+     */
+    public static PartitionedScan byRange(SelectQuery query, Operand key, List<?> bounds) {
+        check(query);
+        checkAscending(bounds);
+        List<SelectQuery> partitions = new ArrayList<>(bounds.size() + 1);
+        Value lower = null;
+        for (Object bound : bounds) {
+            Value upper = Value.of(bound);
+            Condition lessThan = Condition.create(key, ComparisonOperator.LT, upper);
+            partitions.add(partition(query, lower == null ? lessThan : Condition.and(Condition.ge(key, lower), lessThan)));
+            lower = upper;
+        }
+        partitions.add(lower == null
+                ? new SelectQuery(query)
+                : partition(query, Condition.or(Condition.ge(key, lower), Condition.isNull(key))));
+        if (isOrderedBy(query, key, Order.DESC)) {
+            Collections.reverse(partitions);
+        }
+        return new PartitionedScan(partitions, !query.getOrders().isEmpty());
+    }
+
+    /**
+     * Splits a query by ranges of an integer key, of about the same size, between a minimum and a maximum value. The
+     * values out of these limits belong to the first and last partitions.
+     *
+     * @param query query to split
+     * @param key operand partitioning the rows, like a column
+     * @param min minimum value of the key
+     * @param max maximum value of the key
+     * @param count number of partitions
+     * @return the partitions of the query, fewer than requested if the range is smaller than their number
+     */
+    public static PartitionedScan byRange(SelectQuery query, Operand key, long min, long max, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        if (max < min) {
+            throw new IllegalArgumentException("max must not be lower than min: " + min + " > " + max);
+        }
+        BigInteger first = BigInteger.valueOf(min);
+        BigInteger size = BigInteger.valueOf(max).subtract(first).add(BigInteger.ONE);
+        List<Long> bounds = new ArrayList<>(count - 1);
+        for (int i = 1; i < count; i++) {
+            long bound = first.add(size.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count))).longValue();
+            if (bound > min && (bounds.isEmpty() || bound > bounds.get(bounds.size() - 1))) {
+                bounds.add(bound);
+            }
+        }
+        return byRange(query, key, bounds);
+    }
+
+    /**
+     * Splits a query by the remainder of the division of a key: the partition <code>i</code> has the rows where
+     * <code>abs(mod(key, count)) = i</code>. A key of another type than integer can be hashed first, like
+     * <code>new Call("hashtext", column)</code>.
+     *
+     * @param query query to split
+     * @param key integer operand partitioning the rows
+     * @param count number of partitions
+     * @return the partitions of the query
+     */
+    public static PartitionedScan byModulus(SelectQuery query, Operand key, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        check(query);
+        if (count == 1) {
+            return new PartitionedScan(Collections.singletonList(new SelectQuery(query)), !query.getOrders().isEmpty());
+        }
+        Operand remainder = new Call("abs", new Call("mod", key, new Value(count)));
+        List<SelectQuery> partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Condition condition = Condition.eq(remainder, new Value(i));
+            partitions.add(partition(query, i == 0 ? Condition.or(condition, Condition.isNull(key)) : condition));
+        }
+        return new PartitionedScan(partitions, !query.getOrders().isEmpty());
+    }
+
+    private static void check(SelectQuery query) {
+        if (query.getLimit() != null || query.getOffset() != null) {
+            throw new BuilderException("Cannot partition a query with a limit or an offset");
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static void checkAscending(List<?> bounds) {
+        Object previous = null;
+        for (Object bound : bounds) {
+            Objects.requireNonNull(bound, "bound");
+            if (!(bound instanceof Comparable)) {
+                throw new IllegalArgumentException("Bounds must be comparable: " + bound);
+            }
+            if (previous != null && ((Comparable) previous).compareTo(bound) >= 0) {
+                throw new IllegalArgumentException("Bounds must be in strictly ascending order: " + previous + " >= " + bound);
+            }
+            previous = bound;
+        }
+    }
+
+    private static boolean isOrderedBy(SelectQuery query, Operand key, Order order) {
+        if (query.getOrders().isEmpty() || !(key instanceof Column)) {
+            return false;
+        }
+        SelectQuery.OrderElement first = query.getOrders().get(0);
+        Column column = (Column) key;
+        return first.getOrder() == order && Objects.equals(first.getAlias(), column.getAlias())
+                && first.getColumn().equals(column.getName());
+    }
+
+    private static SelectQuery partition(SelectQuery query, Condition condition) {
+        SelectQuery partition = new SelectQuery(query);
+        partition.and(condition);
+        return partition;
+    }
+
+    /**
+     * @return the queries of the partitions
+     */
+    public List<SelectQuery> getQueries() {
+        return partitions;
+    }
+
+    /**
+     * Executes all the partitions and concatenates their rows, in the order of the partitions.
+     *
+     * @param <R> type of the rows
+     * @param loader function executing the query of a partition
+     * @param executor executor of the partitions
+     * @return the rows of all the partitions
+     */
+    public <R> List<R> execute(Function<? super SafeSql, ? extends List<? extends R>> loader, Executor executor) {
+        List<List<? extends R>> results = executeAll(loader, executor);
+        int size = 0;
+        for (List<? extends R> rows : results) {
+            size += rows.size();
+        }
+        List<R> merged = new ArrayList<>(size);
+        for (List<? extends R> rows : results) {
+            merged.addAll(rows);
+        }
+        return merged;
+    }
+
+    /**
+     * Executes all the partitions and merges their ordered rows. The rows of each partition are ordered by the
+     * <code>ORDER BY</code> clause of the query, the given comparator must compare the rows in the same order.
+     *
+     * @param <R> type of the rows
+     * @param loader function executing the query of a partition
+     * @param executor executor of the partitions
+     * @param comparator order of the <code>ORDER BY</code> clause of the query
+     * @return the ordered rows of all the partitions
+     * @throws BuilderException if the query is not ordered
+     */
+    public <R> List<R> executeOrdered(Function<? super SafeSql, ? extends List<? extends R>> loader, Executor executor,
+            Comparator<? super R> comparator) {
+        if (!ordered) {
+            throw new BuilderException("Cannot merge the partitions of a query without ORDER BY");
+        }
+        List<List<? extends R>> results = executeAll(loader, executor);
+        PriorityQueue<Cursor<R>> queue = new PriorityQueue<>(Math.max(1, results.size()), (a, b) -> {
+            int result = comparator.compare(a.current(), b.current());
+            return result != 0 ? result : Integer.compare(a.partition, b.partition);
+        });
+        int size = 0;
+        for (int i = 0; i < results.size(); i++) {
+            List<? extends R> rows = results.get(i);
+            size += rows.size();
+            if (!rows.isEmpty()) {
+                queue.add(new Cursor<>(rows, i));
+            }
+        }
+        List<R> merged = new ArrayList<>(size);
+        while (!queue.isEmpty()) {
+            Cursor<R> cursor = queue.poll();
+            merged.add(cursor.current());
+            if (++cursor.index < cursor.rows.size()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private <R> List<List<? extends R>> executeAll(Function<? super SafeSql, ? extends List<? extends R>> loader,
+            Executor executor) {
+        List<CompletableFuture<List<? extends R>>> futures = new ArrayList<>(partitions.size());
+        for (SelectQuery partition : partitions) {
+            futures.add(CompletableFuture.supplyAsync(() -> loader.apply(partition.toSafeSql()), executor));
+        }
+        List<List<? extends R>> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<List<? extends R>> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            for (CompletableFuture<List<? extends R>> future : futures) {
+                future.cancel(false);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.dhatim.safesql.builder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlUtils;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * A query rendered once, whose {@link Slot}s are bound to values later. Binding only fills the parameters of the
+ * rendered sql, so its cost depends on the number of parameters, not on the size of the query tree.
+ *
+ * <p>A prepared query is immutable and can be shared between threads:
+ * <pre>
+ * PreparedQuery prepared = PreparedQuery.of(query);
+ * SafeSql sql = prepared.bind(Collections.singletonMap("id", 42));
+ * </pre>
+ */
+public final class PreparedQuery {
+
+    private final String sql;
+
+    /**
+     * Parameters of the rendered sql, unbound slots are left in place.
+     */
+    private final Object[] parameters;
+
+    /**
+     * Indexes of the parameters of each slot.
+     */
+    private final Map<String, int[]> slots;
+
+    private PreparedQuery(String sql, Object[] parameters, Map<String, int[]> slots) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.slots = slots;
+    }
+
+    /**
+     * Renders a query and records the position of its slots.
+     *
+     * @param query query to render
+     * @return the prepared query
+     */
+    public static PreparedQuery of(SafeSqlizable query) {
+        SafeSql rendered = query.toSafeSql();
+        Object[] parameters = rendered.getParameters();
+        Map<String, int[]> slots = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] instanceof Slot) {
+                String name = ((Slot) parameters[i]).getName();
+                int[] indexes = slots.get(name);
+                if (indexes == null) {
+                    indexes = new int[] {i};
+                } else {
+                    indexes = Arrays.copyOf(indexes, indexes.length + 1);
+                    indexes[indexes.length - 1] = i;
+                }
+                slots.put(name, indexes);
+            }
+        }
+        return new PreparedQuery(rendered.asSql(), parameters, slots);
+    }
+
+    /**
+     * Returns the names of the slots of this query, in their order of appearance.
+     *
+     * @return the names of the slots
+     */
+    public Set<String> getSlotNames() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    /**
+     * Returns the sql of this query, with a <code>?</code> placeholder for each parameter and slot.
+     *
+     * @return the sql of this query
+     */
+    public String asSql() {
+        return sql;
+    }
+
+    /**
+     * Returns a copy of this query with the given slot bound, the other slots are left unbound.
+     *
+     * @param slot slot to bind
+     * @param value value of the slot
+     * @return a copy of this query with the given slot bound
+     * @throws BuilderException if this query has no such slot
+     */
+    public PreparedQuery with(Slot slot, Object value) {
+        Object[] copy = parameters.clone();
+        fill(copy, slot.getName(), value);
+        return new PreparedQuery(sql, copy, slots);
+    }
+
+    /**
+     * Binds the given slot, which must be the only unbound slot of this query.
+     *
+     * @param slot slot to bind
+     * @param value value of the slot
+     * @return the sql of this query with its parameters
+     * @throws BuilderException if this query has no such slot, or if other slots are not bound
+     */
+    public SafeSql bind(Slot slot, Object value) {
+        Object[] copy = parameters.clone();
+        fill(copy, slot.getName(), value);
+        return toSafeSql(copy);
+    }
+
+    /**
+     * Binds the slots of this query to the values of a map, by name. Entries of the map without a matching slot are
+     * ignored.
+     *
+     * @param values values of the slots, by name
+     * @return the sql of this query with its parameters
+     * @throws BuilderException if a slot is not bound
+     */
+    public SafeSql bind(Map<String, ?> values) {
+        Object[] copy = parameters.clone();
+        for (Map.Entry<String, int[]> entry : slots.entrySet()) {
+            String name = entry.getKey();
+            if (values.containsKey(name)) {
+                Object value = values.get(name);
+                for (int index : entry.getValue()) {
+                    copy[index] = value;
+                }
+            }
+        }
+        return toSafeSql(copy);
+    }
+
+    /**
+     * Returns the sql of this query with its parameters.
+     *
+     * @return the sql of this query with its parameters
+     * @throws BuilderException if a slot is not bound
+     */
+    public SafeSql toSafeSql() {
+        return toSafeSql(parameters.clone());
+    }
+
+    private void fill(Object[] target, String name, Object value) {
+        int[] indexes = slots.get(name);
+        if (indexes == null) {
+            throw new BuilderException("No slot " + name + " in query " + sql);
+        }
+        for (int index : indexes) {
+            target[index] = value;
+        }
+    }
+
+    private SafeSql toSafeSql(Object[] bound) {
+        for (Map.Entry<String, int[]> entry : slots.entrySet()) {
+            // slots with the same name share their value, checking the first index is enough
+            if (bound[entry.getValue()[0]] instanceof Slot) {
+                throw new BuilderException("Slot " + entry.getKey() + " is not bound in query " + sql);
+            }
+        }
+        return SafeSqlUtils.fromSqlAndParameters(sql, bound);
+    }
+
+}
@@ -2,7 +2,7 @@ package org.dhatim.safesql.builder;
 
 import org.dhatim.safesql.SafeSqlBuilder;
 
-public class QueryOperand implements Operand {
+public class QueryOperand implements Operand, Freezable<QueryOperand> {
 
     private final SelectQuery query;
 
@@ -10,6 +10,25 @@ public class QueryOperand implements Operand {
         this.query = query;
     }
 
+    public SelectQuery getQuery() {
+        return query;
+    }
+
+    @Override
+    public QueryOperand freeze() {
+        return isFrozen() ? this : new QueryOperand(query.freeze());
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return query.isFrozen();
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append('(');
@@ -0,0 +1,398 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * A visitor that walks a query tree and rebuilds it from the transformed children of each node.
+ *
+ * <p>By default each node is returned as is when none of its children changed, so the identity transformer does not
+ * copy anything and can be used to walk a whole tree. Subclasses override the <code>visit</code> methods of the nodes
+ * they rewrite, and call the super method to transform the children. A node must be replaced by a node usable at the
+ * same place: a condition by a condition, a sub query of a {@link QueryOperand} by a {@link SelectQuery}, and so on.
+ *
+ * <p>An element of a list, like a join, a selected operand or a condition of a <code>WHERE</code> clause or of a group,
+ * is removed when its transformation returns <code>null</code>. A group left with a single condition is replaced by
+ * this condition, and an empty group is removed. In the same way, a <code>CASE</code> branch is removed when its
+ * condition is removed, and a <code>CASE</code> without any branch is replaced by its <code>ELSE</code> operand.
+ *
+ * <p>Rebuilt nodes are frozen when the original node is frozen. The input tree is never modified.
+ */
+public class QueryTransformer implements QueryVisitor<SafeSqlizable> {
+
+    public Operand transformOperand(Operand operand) {
+        return operand == null ? null : (Operand) operand.accept(this);
+    }
+
+    public Condition transformCondition(Condition condition) {
+        return condition == null ? null : (Condition) condition.accept(this);
+    }
+
+    public SqlQuery transformQuery(SqlQuery query) {
+        return query == null ? null : (SqlQuery) query.accept(this);
+    }
+
+    public SelectQuery transformSelect(SelectQuery query) {
+        return query == null ? null : (SelectQuery) query.accept(this);
+    }
+
+    public From transformFrom(From from) {
+        return (From) from.accept(this);
+    }
+
+    public Jointure transformJointure(Jointure jointure) {
+        return (Jointure) jointure.accept(this);
+    }
+
+    public CommonTableExpression transformCommonTableExpression(CommonTableExpression cte) {
+        return (CommonTableExpression) cte.accept(this);
+    }
+
+    public Window transformWindow(Window window) {
+        return (Window) window.accept(this);
+    }
+
+    public InsertQuery transformInsert(InsertQuery query) {
+        return (InsertQuery) query.accept(this);
+    }
+
+    /**
+     * Transforms a list of conditions combined with <code>AND</code>: the <code>WHERE</code> or <code>HAVING</code>
+     * clause of a query, or the <code>ON</code> clause of a join.
+     *
+     * @param conditions conditions to transform
+     * @return the given list if no condition changed, a new list otherwise
+     */
+    public List<Condition> transformConditions(List<Condition> conditions) {
+        return transformAll(conditions, this::transformCondition);
+    }
+
+    /**
+     * Transforms the <code>ON</code> clause of a join, with {@link #transformConditions(List)} by default. The
+     * <code>ON</code> clause of a join must not become empty.
+     *
+     * @param conditions conditions to transform
+     * @return the given list if no condition changed, a new list otherwise
+     */
+    public List<Condition> transformJoinConditions(List<Condition> conditions) {
+        return transformConditions(conditions);
+    }
+
+    @Override
+    public SafeSqlizable visitOther(SafeSqlizable node) {
+        return node;
+    }
+
+    @Override
+    public SafeSqlizable visit(Call call) {
+        Operand[] arguments = call.arguments();
+        Operand[] transformed = null;
+        for (int i = 0; i < arguments.length; i++) {
+            Operand argument = transformOperand(arguments[i]);
+            if (transformed == null && argument != arguments[i]) {
+                transformed = arguments.clone();
+            }
+            if (transformed != null) {
+                transformed[i] = argument;
+            }
+        }
+        return transformed == null ? call : new Call(call.getFunctionName(), transformed);
+    }
+
+    @Override
+    public SafeSqlizable visit(Cast cast) {
+        Operand operand = transformOperand(cast.getOperand());
+        return operand == cast.getOperand() ? cast : new Cast(operand, cast.getSqlType());
+    }
+
+    @Override
+    public SafeSqlizable visit(Concat concat) {
+        List<Operand> operands = concat.getOperands();
+        List<Operand> transformed = transformAll(operands, this::transformOperand);
+        return transformed == operands ? concat : new Concat(transformed);
+    }
+
+    @Override
+    public SafeSqlizable visit(Compute compute) {
+        Operand left = transformOperand(compute.getLeftOperand());
+        Operand right = transformOperand(compute.getRightOperand());
+        if (left == compute.getLeftOperand() && right == compute.getRightOperand()) {
+            return compute;
+        }
+        return new Compute(left, compute.getOperator(), right);
+    }
+
+    @Override
+    public SafeSqlizable visit(UnaryCompute compute) {
+        Operand operand = transformOperand(compute.getOperand());
+        return operand == compute.getOperand() ? compute : new UnaryCompute(compute.getOperator(), operand);
+    }
+
+    @Override
+    public SafeSqlizable visit(Row row) {
+        List<Operand> elements = row.getElements();
+        List<Operand> transformed = transformAll(elements, this::transformOperand);
+        return transformed == elements ? row : new Row(transformed);
+    }
+
+    @Override
+    public SafeSqlizable visit(Case<?> clause) {
+        Case<?> result;
+        if (clause instanceof Case.ConditionalCase) {
+            result = transformWhens((Case.ConditionalCase) clause, Case.ConditionalCase::new, this::transformCondition, false);
+        } else if (clause instanceof Case.SimpleCase) {
+            Case.SimpleCase simpleCase = (Case.SimpleCase) clause;
+            Operand expression = transformOperand(simpleCase.getExpression());
+            result = transformWhens(simpleCase, () -> new Case.SimpleCase(expression), value -> (Value) transformOperand(value), expression != simpleCase.getExpression());
+        } else {
+            return clause;
+        }
+        if (result.getWhens().isEmpty()) {
+            // no branch left, the else operand is always the result
+            return result.getElse() == null ? Literal.of(null) : result.getElse();
+        }
+        return result != clause && clause.isFrozen() ? result.freeze() : result;
+    }
+
+    /**
+     * Transforms the branches of a <code>CASE</code>, creating a copy only once a branch changed.
+     */
+    private <T extends SafeSqlizable> Case<T> transformWhens(Case<T> clause, Supplier<? extends Case<T>> factory,
+            Function<T, T> function, boolean changed) {
+        List<Case.When<T>> whens = clause.getWhens();
+        Case<T> copy = changed ? factory.get() : null;
+        for (int i = 0; i < whens.size(); i++) {
+            Case.When<T> when = whens.get(i);
+            T expression = function.apply(when.getExpression());
+            Operand result = transformOperand(when.getResult());
+            if (copy == null && (expression != when.getExpression() || result != when.getResult())) {
+                copy = copyWhens(factory, whens.subList(0, i));
+            }
+            if (copy != null && expression != null) {
+                copy.add(expression, result);
+            }
+        }
+        Operand elseOperand = transformOperand(clause.getElse());
+        if (copy == null) {
+            if (elseOperand == clause.getElse()) {
+                return clause;
+            }
+            copy = copyWhens(factory, whens);
+        }
+        copy.setElse(elseOperand);
+        return copy;
+    }
+
+    private static <T extends SafeSqlizable> Case<T> copyWhens(Supplier<? extends Case<T>> factory, List<Case.When<T>> whens) {
+        Case<T> copy = factory.get();
+        for (Case.When<T> when : whens) {
+            copy.add(when.getExpression(), when.getResult());
+        }
+        return copy;
+    }
+
+    @Override
+    public SafeSqlizable visit(NamedOperand operand) {
+        Operand transformed = transformOperand(operand.getOperand());
+        return transformed == operand.getOperand() ? operand : new NamedOperand(transformed, operand.getAlias());
+    }
+
+    @Override
+    public SafeSqlizable visit(QueryOperand operand) {
+        SelectQuery query = transformSelect(operand.getQuery());
+        if (query == operand.getQuery()) {
+            return operand;
+        }
+        QueryOperand result = new QueryOperand(query);
+        return operand.isFrozen() ? result.freeze() : result;
+    }
+
+    @Override
+    public SafeSqlizable visit(Over over) {
+        Call windowFunction = (Call) transformOperand(over.getWindowFunction());
+        Window window = transformWindow(over.getWindow());
+        if (windowFunction == over.getWindowFunction() && window == over.getWindow()) {
+            return over;
+        }
+        Over result = new Over(windowFunction, window);
+        return over.isFrozen() ? result.freeze() : result;
+    }
+
+    @Override
+    public SafeSqlizable visit(BooleanOperand operand) {
+        Expression expression = operand.getExpression();
+        Expression transformed;
+        if (expression instanceof Condition) {
+            transformed = transformCondition((Condition) expression);
+        } else if (expression instanceof Operand) {
+            transformed = transformOperand((Operand) expression);
+        } else {
+            transformed = expression;
+        }
+        return transformed == expression ? operand : operand.create(transformed, operand.isNegative());
+    }
+
+    @Override
+    public SafeSqlizable visit(ConditionGroup group) {
+        List<Condition> conditions = group.getConditions();
+        List<Condition> transformed = transformAll(conditions, this::transformCondition);
+        if (transformed == conditions) {
+            return group;
+        } else if (transformed.size() < 2) {
+            return transformed.isEmpty() ? null : transformed.get(0);
+        }
+        return group.with(transformed);
+    }
+
+    @Override
+    public SafeSqlizable visit(AbstractCondition<?, ?, ?> condition) {
+        Operand left = transformOperand(condition.getLeft());
+        if (condition instanceof InCondition) {
+            InCondition in = (InCondition) condition;
+            List<Operand> elements = in.getRight().getElements();
+            List<Operand> transformed = transformAll(elements, this::transformOperand);
+            if (left == in.getLeft() && transformed == elements) {
+                return in;
+            }
+            return in.with(left, transformed);
+        } else if (condition.getClass() == SimpleCondition.class) {
+            Operand right = transformOperand((Operand) condition.getRight());
+            if (left == condition.getLeft() && right == condition.getRight()) {
+                return condition;
+            }
+            return new SimpleCondition(left, condition.getOperator(), right);
+        }
+        return condition;
+    }
+
+    @Override
+    public SafeSqlizable visit(BetweenCondition condition) {
+        Operand left = transformOperand(condition.getLeft());
+        Operand low = transformOperand(condition.getLow());
+        Operand high = transformOperand(condition.getHigh());
+        if (left == condition.getLeft() && low == condition.getLow() && high == condition.getHigh()) {
+            return condition;
+        }
+        return new BetweenCondition(left, condition.getOperator() == RelationalOperator.NOT_BETWEEN, low, high);
+    }
+
+    @Override
+    public SafeSqlizable visit(NullCondition condition) {
+        Operand operand = transformOperand(condition.getOperand());
+        if (operand == condition.getOperand()) {
+            return condition;
+        }
+        return condition.isNullTest() ? NullCondition.is(operand) : NullCondition.isNot(operand);
+    }
+
+    @Override
+    public SafeSqlizable visit(SelectQuery query) {
+        return query.transform(this);
+    }
+
+    @Override
+    public SafeSqlizable visit(Values values) {
+        List<Row> rows = values.getRows();
+        List<Row> transformed = transformAll(rows, row -> (Row) transformOperand(row));
+        return transformed == rows ? values : new Values(transformed);
+    }
+
+    @Override
+    public SafeSqlizable visit(InsertQuery query) {
+        List<CommonTableExpression> ctes = query.getCommonTableExpressions();
+        List<CommonTableExpression> transformedCtes = transformAll(ctes, this::transformCommonTableExpression);
+        SqlQuery transformed = transformQuery(query.getQuery());
+        if (transformedCtes == ctes && transformed == query.getQuery()) {
+            return query;
+        }
+        InsertQuery result = new InsertQuery(query.getSchema(), query.getTableName(), query.getColumns(), transformed);
+        result.addCommonTableExpressions(transformedCtes);
+        return result;
+    }
+
+    @Override
+    public SafeSqlizable visit(CommonTableExpression cte) {
+        SqlQuery query = transformQuery(cte.getQuery());
+        if (query == cte.getQuery()) {
+            return cte;
+        }
+        CommonTableExpression result = new CommonTableExpression(cte.getName(), cte.getColumnNames(), query);
+        return cte.isFrozen() ? result.freeze() : result;
+    }
+
+    @Override
+    public SafeSqlizable visit(From from) {
+        SqlQuery query = transformQuery(from.getQuery());
+        List<Jointure> jointures = from.getJointures();
+        List<Jointure> transformed = transformAll(jointures, this::transformJointure);
+        if (query == from.getQuery() && transformed == jointures) {
+            return from;
+        }
+        From result;
+        if (query == null) {
+            result = From.table(from.getSchema(), from.getTableName(), from.getAlias(), from.getColumnAliases());
+        } else {
+            result = From.query(query, from.getAlias(), from.getColumnAliases());
+        }
+        result.addJointures(transformed);
+        return from.isFrozen() ? result.freeze() : result;
+    }
+
+    @Override
+    public SafeSqlizable visit(Jointure jointure) {
+        List<Condition> conditions = jointure.getConditions();
+        List<Condition> transformedConditions = transformJoinConditions(conditions);
+        List<Jointure> jointures = jointure.getJointures();
+        List<Jointure> transformedJointures = transformAll(jointures, this::transformJointure);
+        if (transformedConditions == conditions && transformedJointures == jointures) {
+            return jointure;
+        }
+        Jointure result = new Jointure(jointure.getType(), jointure.getSchema(), jointure.getTableName(), jointure.getAlias());
+        result.addJointures(transformedJointures);
+        transformedConditions.forEach(result::and);
+        return jointure.isFrozen() ? result.freeze() : result;
+    }
+
+    @Override
+    public SafeSqlizable visit(Window window) {
+        if (window.getClass() != Window.class && window.getClass() != NamedWindow.class) {
+            return window;
+        }
+        List<Operand> partition = window.getPartition();
+        List<Operand> transformed = transformAll(partition, this::transformOperand);
+        if (transformed == partition) {
+            return window;
+        }
+        Window result = window instanceof NamedWindow ? new NamedWindow(((NamedWindow) window).getName(), transformed) : new Window(transformed);
+        return window.isFrozen() ? result.freeze() : result;
+    }
+
+    /**
+     * Applies a function to all the elements of a list.
+     *
+     * @param <E> type of the elements
+     * @param list elements to transform
+     * @param function transformation of an element
+     * @return the given list if the function returned all its elements unchanged, a new list without the
+     * <code>null</code> results otherwise
+     */
+    static <E> List<E> transformAll(List<E> list, Function<? super E, ? extends E> function) {
+        List<E> result = null;
+        for (int i = 0; i < list.size(); i++) {
+            E element = list.get(i);
+            E transformed = function.apply(element);
+            if (result == null && transformed != element) {
+                result = new ArrayList<>(list.size());
+                result.addAll(list.subList(0, i));
+            }
+            if (result != null && transformed != null) {
+                result.add(transformed);
+            }
+        }
+        return result == null ? list : result;
+    }
+
+}
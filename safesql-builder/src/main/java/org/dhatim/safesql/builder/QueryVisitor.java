@@ -0,0 +1,148 @@
+package org.dhatim.safesql.builder;
+
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * A visitor over the nodes of a query tree.
+ *
+ * <p>Each node calls the method matching its type from its <code>accept</code> method. Every method delegates to the
+ * method of the parent type by default, down to {@link #visitOther(SafeSqlizable)} which receives the nodes without a
+ * dedicated method, like lambdas or user defined operands. Children are not visited automatically, see
+ * {@link QueryTransformer} for a visitor that walks the whole tree.
+ *
+ * @param <R> type of the result of the visitor
+ */
+@FunctionalInterface
+public interface QueryVisitor<R> {
+
+    R visitOther(SafeSqlizable node);
+
+    default R visit(Column column) {
+        return visitOther(column);
+    }
+
+    default R visit(BooleanColumn column) {
+        return visit((Column) column);
+    }
+
+    default R visit(Value value) {
+        return visitOther(value);
+    }
+
+    default R visit(BooleanValue value) {
+        return visit((Value) value);
+    }
+
+    default R visit(Slot slot) {
+        return visitOther(slot);
+    }
+
+    default R visit(Literal literal) {
+        return visitOther(literal);
+    }
+
+    default R visit(Constant constant) {
+        return visitOther(constant);
+    }
+
+    default R visit(Call call) {
+        return visitOther(call);
+    }
+
+    default R visit(Cast cast) {
+        return visitOther(cast);
+    }
+
+    default R visit(Concat concat) {
+        return visitOther(concat);
+    }
+
+    default R visit(Compute compute) {
+        return visitOther(compute);
+    }
+
+    default R visit(UnaryCompute compute) {
+        return visitOther(compute);
+    }
+
+    default R visit(Row row) {
+        return visitOther(row);
+    }
+
+    default R visit(Case<?> clause) {
+        return visitOther(clause);
+    }
+
+    default R visit(NamedOperand operand) {
+        return visitOther(operand);
+    }
+
+    default R visit(QueryOperand operand) {
+        return visitOther(operand);
+    }
+
+    default R visit(Over over) {
+        return visitOther(over);
+    }
+
+    default R visit(BooleanOperand operand) {
+        return visitOther(operand);
+    }
+
+    default R visit(ConditionGroup group) {
+        return visitOther(group);
+    }
+
+    default R visit(AbstractCondition<?, ?, ?> condition) {
+        return visitOther(condition);
+    }
+
+    default R visit(BetweenCondition condition) {
+        return visit((AbstractCondition<?, ?, ?>) condition);
+    }
+
+    default R visit(NullCondition condition) {
+        return visitOther(condition);
+    }
+
+    default R visit(SelectQuery query) {
+        return visitOther(query);
+    }
+
+    default R visit(Values values) {
+        return visitOther(values);
+    }
+
+    default R visit(SafeSqlQuery query) {
+        return visitOther(query);
+    }
+
+    default R visit(InsertQuery query) {
+        return visitOther(query);
+    }
+
+    default R visit(CommonTableExpression cte) {
+        return visitOther(cte);
+    }
+
+    default R visit(From from) {
+        return visitOther(from);
+    }
+
+    default R visit(Jointure jointure) {
+        return visitOther(jointure);
+    }
+
+    default R visit(Window window) {
+        return visitOther(window);
+    }
+
+    default R visit(NamedWindow window) {
+        return visit((Window) window);
+    }
+
+    default R visit(SelectQuery.OrderElement order) {
+        return visitOther(order);
+    }
+
+}
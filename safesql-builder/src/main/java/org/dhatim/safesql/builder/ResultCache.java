@@ -0,0 +1,374 @@
+package org.dhatim.safesql.builder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * An in-process cache of query results, keyed by the rendered sql and its parameters.
+ *
+ * <p>Each entry records the tables read by its query, so that the entries reading a table can be invalidated when the
+ * table is written. The tables of builder queries are found automatically from their <code>FROM</code> and
+ * <code>JOIN</code> clauses, see {@link #tablesOf(SafeSqlizable)}. Entries are evicted in least recently used order
+ * once the total weight of the cache exceeds its maximum, and expire after a fixed time if a time to live is set.
+ *
+ * <p>The cache does not access the database itself: results are computed by a loader function given to
+ * {@link #get(SqlQuery, Function)}, called outside of any lock. Concurrent misses on the same key may call the loader
+ * several times, the last result wins. A result is not cached if an invalidation happened while it was computed, since
+ * it may have been computed before the write which caused the invalidation.
+ *
+ * @param <V> type of the results
+ */
+public final class ResultCache<V> {
+
+    /**
+     * A snapshot of the statistics of a cache.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+
+        Stats(long hits, long misses, long evictions, long expirations, long invalidations) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of entries removed because the cache was full
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of entries removed because they were too old
+         */
+        public long getExpirations() {
+            return expirations;
+        }
+
+        /**
+         * @return the number of entries removed by an invalidation
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        /**
+         * @return the ratio of hits among all lookups, 0 if there was no lookup
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", expirations="
+                    + expirations + ", invalidations=" + invalidations + "}";
+        }
+
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final Set<String> tables;
+        private final long weight;
+        private final long created;
+
+        Entry(V value, Set<String> tables, long weight, long created) {
+            this.value = value;
+            this.tables = tables;
+            this.weight = weight;
+            this.created = created;
+        }
+
+    }
+
+    private final long maximumWeight;
+
+    /**
+     * Entries in least recently used order.
+     */
+    private final LinkedHashMap<SafeSql, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Keys of the entries reading each table.
+     */
+    private final Map<String, Set<SafeSql>> keysByTable = new HashMap<>();
+
+    private ToLongFunction<? super V> weigher = value -> 1;
+    private long timeToLive;
+    private LongSupplier ticker = System::nanoTime;
+
+    private long weight;
+    /**
+     * Incremented by each invalidation.
+     */
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    /**
+     * Creates a cache holding at most the given weight of results, each result weighing 1 by default.
+     *
+     * @param maximumWeight maximum total weight of the results
+     */
+    public ResultCache(long maximumWeight) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Sets the function giving the weight of a result, like its number of rows.
+     *
+     * @param weigher weight of a result
+     * @return a reference to this object
+     */
+    public synchronized ResultCache<V> weigher(ToLongFunction<? super V> weigher) {
+        this.weigher = Objects.requireNonNull(weigher, "weigher");
+        return this;
+    }
+
+    /**
+     * Sets the time after which results expire, counted from their computation.
+     *
+     * @param timeToLive time to live of the results, <code>null</code> or zero to never expire
+     * @return a reference to this object
+     */
+    public synchronized ResultCache<V> expireAfterWrite(Duration timeToLive) {
+        this.timeToLive = timeToLive == null ? 0 : timeToLive.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the source of time of this cache, in nanoseconds, {@link System#nanoTime()} by default.
+     *
+     * @param ticker source of time
+     * @return a reference to this object
+     */
+    public synchronized ResultCache<V> ticker(LongSupplier ticker) {
+        this.ticker = Objects.requireNonNull(ticker, "ticker");
+        return this;
+    }
+
+    /**
+     * Returns the result of a builder query, computing it if it is not cached. The result is invalidated by the tables
+     * of the query.
+     *
+     * @param query query to execute
+     * @param loader function executing the rendered query
+     * @return the result of the query
+     */
+    public V get(SqlQuery query, Function<? super SafeSql, ? extends V> loader) {
+        return get(query.toSafeSql(), tablesOf(query), loader);
+    }
+
+    /**
+     * Returns the result of a query, computing it if it is not cached.
+     *
+     * @param sql query to execute
+     * @param tables tables read by the query, which invalidate the result
+     * @param loader function executing the query
+     * @return the result of the query
+     */
+    public V get(SafeSql sql, Collection<String> tables, Function<? super SafeSql, ? extends V> loader) {
+        long start;
+        synchronized (this) {
+            Entry<V> entry = lookup(sql);
+            if (entry != null) {
+                hits++;
+                return entry.value;
+            }
+            misses++;
+            start = generation;
+        }
+        V value = loader.apply(sql);
+        synchronized (this) {
+            if (generation == start) {
+                put(sql, tables, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached result of a query, without computing it.
+     *
+     * @param sql query
+     * @return the cached result, or <code>null</code> if it is not cached
+     */
+    public synchronized V getIfPresent(SafeSql sql) {
+        Entry<V> entry = lookup(sql);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Caches the result of a query.
+     *
+     * @param sql query
+     * @param tables tables read by the query, which invalidate the result
+     * @param value result of the query
+     */
+    public synchronized void put(SafeSql sql, Collection<String> tables, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        remove(sql);
+        if (valueWeight > maximumWeight) {
+            evictions++;
+            return;
+        }
+        Set<String> tableSet = Collections.unmodifiableSet(new HashSet<>(tables));
+        entries.put(sql, new Entry<>(value, tableSet, valueWeight, ticker.getAsLong()));
+        for (String table : tableSet) {
+            keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(sql);
+        }
+        weight += valueWeight;
+        Iterator<Map.Entry<SafeSql, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (weight > maximumWeight) {
+            Map.Entry<SafeSql, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the results of the queries reading a table.
+     *
+     * @param table name of the table, qualified by its schema if the queries qualify it
+     * @return the number of removed results
+     */
+    public synchronized int invalidateTable(String table) {
+        generation++;
+        Set<SafeSql> keys = keysByTable.remove(table);
+        if (keys == null) {
+            return 0;
+        }
+        for (SafeSql key : keys) {
+            remove(key);
+        }
+        invalidations += keys.size();
+        return keys.size();
+    }
+
+    /**
+     * Removes the result of a query.
+     *
+     * @param sql query
+     */
+    public synchronized void invalidate(SafeSql sql) {
+        generation++;
+        if (remove(sql) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+        keysByTable.clear();
+        weight = 0;
+    }
+
+    /**
+     * @return the number of cached results, including expired results not removed yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total weight of the cached results
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, expirations, invalidations);
+    }
+
+    /**
+     * Returns the tables read by a builder query: the tables of its <code>FROM</code> and <code>JOIN</code> clauses,
+     * including those of its sub queries, qualified by their schema if any. Common table expressions are not tables
+     * and are excluded, but the tables they read are included.
+     *
+     * @param query builder query
+     * @return the names of the tables read by the query
+     * @see DependencyAnalyzer
+     */
+    public static Set<String> tablesOf(SafeSqlizable query) {
+        return DependencyAnalyzer.analyze(query).getReadTables();
+    }
+
+    private Entry<V> lookup(SafeSql sql) {
+        Entry<V> entry = entries.get(sql);
+        if (entry != null && timeToLive > 0 && ticker.getAsLong() - entry.created >= timeToLive) {
+            remove(sql);
+            expirations++;
+            return null;
+        }
+        return entry;
+    }
+
+    private Entry<V> remove(SafeSql sql) {
+        Entry<V> entry = entries.remove(sql);
+        if (entry != null) {
+            unindex(sql, entry);
+        }
+        return entry;
+    }
+
+    private void unindex(SafeSql sql, Entry<V> entry) {
+        weight -= entry.weight;
+        for (String table : entry.tables) {
+            Set<SafeSql> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(sql);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+}
@@ -26,6 +26,11 @@ public class Row implements Operand {
         return elements.size();
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append("(").joinedSqlizables(", ", elements).append(")");
@@ -11,6 +11,15 @@ public class SafeSqlQuery implements SqlQuery {
         this.sql = sql;
     }
 
+    public SafeSql getSql() {
+        return sql;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append(sql);
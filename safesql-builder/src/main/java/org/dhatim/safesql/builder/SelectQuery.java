@@ -4,12 +4,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
 
-public class SelectQuery implements WhereClause, SqlQuery {
+public class SelectQuery implements WhereClause, SqlQuery, Freezable<SelectQuery> {
 
-    private static class OrderElement implements SafeSqlizable {
+    public static final class OrderElement implements SafeSqlizable {
 
         private final Alias alias;
         private final String column;
@@ -21,6 +22,22 @@ public class SelectQuery implements WhereClause, SqlQuery {
             this.alias = alias;
         }
 
+        public Alias getAlias() {
+            return alias;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public <R> R accept(QueryVisitor<R> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public void appendTo(SafeSqlBuilder builder) {
             if (alias != null) {
@@ -31,69 +48,158 @@ public class SelectQuery implements WhereClause, SqlQuery {
 
     }
 
+    private static final QueryTransformer IN_LISTS_AS_ARRAYS = new QueryTransformer() {
+        @Override
+        public SafeSqlizable visit(AbstractCondition<?, ?, ?> condition) {
+            SafeSqlizable result = super.visit(condition);
+            if (result instanceof InCondition && ((InCondition) result).getArrayType() == null) {
+                return ((InCondition) result).asArray();
+            }
+            return result;
+        }
+    };
+
+    private static SelectQuery padInLists(SelectQuery query, InListPadding padding) {
+        return new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(AbstractCondition<?, ?, ?> condition) {
+                SafeSqlizable result = super.visit(condition);
+                if (result instanceof InCondition && ((InCondition) result).getPadding() == null) {
+                    return ((InCondition) result).padded(padding);
+                }
+                return result;
+            }
+        }.transformSelect(query);
+    }
+
     private final BuilderContext context;
 
-    private final List<CommonTableExpression> ctes = new ArrayList<>();
+    private final List<CommonTableExpression> ctes;
 
-    private final List<Operand> selects = new ArrayList<>();
-    private final List<From> froms = new ArrayList<>();
+    private final List<Operand> selects;
+    private final List<From> froms;
 
-    private final List<Condition> conditions = new ArrayList<>();
+    private final List<Condition> conditions;
 
-    private final List<Operand> groupBy = new ArrayList<>();
+    private final List<Operand> groupBy;
 
-    private final List<Condition> havings = new ArrayList<>();
+    private final List<Condition> havings;
 
-    private final List<NamedWindow> windows = new ArrayList<>();
+    private final List<NamedWindow> windows;
 
     private boolean distinct;
 
     private Integer limit;
 
-    private final List<OrderElement> orders = new ArrayList<>();
+    private Integer offset;
+
+    private boolean removeUnusedLeftJoins;
+
+    private boolean sortConditions;
+
+    private boolean inListsAsArrays;
+
+    private InListPadding inListPadding;
+
+    private final List<OrderElement> orders;
+
+    private final FrozenSql rendered;
+
+    /**
+     * Cached structural keys of a frozen query, value sensitive and value insensitive.
+     */
+    private volatile StructuralKey key;
+    private volatile StructuralKey shape;
 
     public SelectQuery() {
          this(new BuilderContext());
     }
 
+    /**
+     * Creates a copy of the given query. The copy shares its clauses with the given query until one of them is
+     * modified, so copying does not depend on the size of the query.
+     *
+     * @param other query to copy
+     */
     public SelectQuery(SelectQuery other) {
-        this(other.context, other.ctes, other.selects, other.froms, other.conditions, other.havings, other.groupBy, other.windows, other.distinct, other.orders, other.limit);
+        this.context = new BuilderContext(other.context);
+        this.ctes = ForkableList.fork(other.ctes);
+        this.selects = ForkableList.fork(other.selects);
+        this.froms = ForkableList.fork(other.froms);
+        this.conditions = ForkableList.fork(other.conditions);
+        this.groupBy = ForkableList.fork(other.groupBy);
+        this.havings = ForkableList.fork(other.havings);
+        this.windows = ForkableList.fork(other.windows);
+        this.orders = ForkableList.fork(other.orders);
+        this.distinct = other.distinct;
+        this.limit = other.limit;
+        this.offset = other.offset;
+        this.removeUnusedLeftJoins = other.removeUnusedLeftJoins;
+        this.sortConditions = other.sortConditions;
+        this.inListsAsArrays = other.inListsAsArrays;
+        this.inListPadding = other.inListPadding;
+        this.rendered = null;
     }
 
     private SelectQuery(BuilderContext context) {
         this.context = context;
-    }
-
-    private SelectQuery(BuilderContext context, List<CommonTableExpression> ctes, List<Operand> selects, List<From> froms, List<Condition> conditions,
-            List<Condition> havings, List<Operand> groupBy, List<NamedWindow> windows, boolean distinct, List<OrderElement> orders, Integer limit) {
-        this(new BuilderContext(context));
-        this.ctes.addAll(ctes);
-        this.selects.addAll(selects);
-        this.froms.addAll(froms);
-        this.conditions.addAll(conditions);
-        this.havings.addAll(havings);
-        this.groupBy.addAll(groupBy);
-        this.distinct = distinct;
-        this.windows.addAll(windows);
-        this.orders.addAll(orders);
-        this.limit = limit;
+        this.ctes = new ForkableList<>();
+        this.selects = new ForkableList<>();
+        this.froms = new ForkableList<>();
+        this.conditions = new ForkableList<>();
+        this.groupBy = new ForkableList<>();
+        this.havings = new ForkableList<>();
+        this.windows = new ForkableList<>();
+        this.orders = new ForkableList<>();
+        this.rendered = null;
+    }
+
+    /**
+     * Creates a frozen copy of the given query.
+     *
+     * @param other query to copy
+     * @param frozen unused, distinguishes this constructor
+     */
+    private SelectQuery(SelectQuery other, boolean frozen) {
+        this.context = new BuilderContext(other.context);
+        this.ctes = FreezeSupport.freezeAll(other.ctes);
+        this.selects = FreezeSupport.freezeAll(other.selects);
+        this.froms = FreezeSupport.freezeAll(other.froms);
+        this.conditions = FreezeSupport.freezeAll(other.conditions);
+        this.groupBy = FreezeSupport.freezeAll(other.groupBy);
+        this.havings = FreezeSupport.freezeAll(other.havings);
+        this.windows = FreezeSupport.freezeAll(other.windows);
+        this.orders = FreezeSupport.freezeAll(other.orders);
+        this.distinct = other.distinct;
+        this.limit = other.limit;
+        this.offset = other.offset;
+        this.removeUnusedLeftJoins = other.removeUnusedLeftJoins;
+        this.sortConditions = other.sortConditions;
+        this.inListsAsArrays = other.inListsAsArrays;
+        this.inListPadding = other.inListPadding;
+        SelectQuery query = transformed();
+        this.rendered = FrozenSql.render(query, query::renderClauses);
     }
 
     public SelectQuery select(Operand operand) {
+        checkNotFrozen();
         selects.add(operand);
         return this;
     }
 
     public void clearSelects() {
+        checkNotFrozen();
         selects.clear();
     }
 
     public SelectQuery with(String name, SqlQuery query) {
+        checkNotFrozen();
         ctes.add(new CommonTableExpression(name, query));
         return this;
     }
 
     public SelectQuery with(String name, List<String> columnNames, SqlQuery query) {
+        checkNotFrozen();
         ctes.add(new CommonTableExpression(name, columnNames, query));
         return this;
     }
@@ -143,25 +249,30 @@ public class SelectQuery implements WhereClause, SqlQuery {
     }
 
     public void clearFroms() {
+        checkNotFrozen();
         froms.clear();
     }
 
     private From from(From from) {
+        checkNotFrozen();
         froms.add(from);
         return from;
     }
 
     public SelectQuery groupBy(Column... columns) {
+        checkNotFrozen();
         groupBy.addAll(Arrays.asList(columns));
         return this;
     }
 
     public SelectQuery groupBy(Column column) {
+        checkNotFrozen();
         groupBy.add(column);
         return this;
     }
 
     public void clearGroupBys() {
+        checkNotFrozen();
         groupBy.clear();
     }
 
@@ -174,6 +285,7 @@ public class SelectQuery implements WhereClause, SqlQuery {
         return new Having() {
             @Override
             public Having and(Condition condition) {
+                checkNotFrozen();
                 havings.add(condition);
                 return this;
             }
@@ -181,28 +293,113 @@ public class SelectQuery implements WhereClause, SqlQuery {
     }
 
     public void clearHavings() {
+        checkNotFrozen();
         havings.clear();
     }
 
     public SelectQuery windows(NamedWindow... namedWindows) {
+        checkNotFrozen();
         windows.addAll(Arrays.asList(namedWindows));
         return this;
     }
 
     public SelectQuery window(NamedWindow window) {
+        checkNotFrozen();
         windows.add(window);
         return this;
     }
 
     public void clearWindows() {
+        checkNotFrozen();
         windows.clear();
     }
 
+    public List<CommonTableExpression> getCommonTableExpressions() {
+        return Collections.unmodifiableList(ctes);
+    }
+
+    public List<Operand> getSelects() {
+        return Collections.unmodifiableList(selects);
+    }
+
+    public List<From> getFroms() {
+        return Collections.unmodifiableList(froms);
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    public List<Operand> getGroupBys() {
+        return Collections.unmodifiableList(groupBy);
+    }
+
+    public List<Condition> getHavings() {
+        return Collections.unmodifiableList(havings);
+    }
+
+    public List<NamedWindow> getWindows() {
+        return Collections.unmodifiableList(windows);
+    }
+
+    public List<OrderElement> getOrders() {
+        return Collections.unmodifiableList(orders);
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    /**
+     * Returns the maximum number of rows of this query, <code>null</code> if there is no limit.
+     *
+     * @return the limit of this query
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of rows skipped by this query, <code>null</code> if there is no offset.
+     *
+     * @return the offset of this query
+     */
+    public Integer getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the options changing the rendering of this query, part of its structural key.
+     */
+    List<Object> getRenderOptions() {
+        return Arrays.asList(removeUnusedLeftJoins, sortConditions, inListsAsArrays, inListPadding);
+    }
+
+    /**
+     * Returns the structural key of this query, cached if this query is frozen.
+     */
+    StructuralKey structuralKey(boolean values) {
+        if (!isFrozen()) {
+            return StructuralKey.compute(this, values);
+        }
+        StructuralKey result = values ? key : shape;
+        if (result == null) {
+            result = StructuralKey.compute(this, values);
+            if (values) {
+                key = result;
+            } else {
+                shape = result;
+            }
+        }
+        return result;
+    }
+
     public Alias generate() {
         return generate("_1");
     }
 
     public Alias generate(String suggestion) {
+        checkNotFrozen();
         return context.generate(suggestion);
     }
 
@@ -211,11 +408,75 @@ public class SelectQuery implements WhereClause, SqlQuery {
     }
 
     public String generateIdentifier(String suggestion) {
+        checkNotFrozen();
         return context.generateIdentifier(suggestion);
     }
 
+    @Override
+    public SelectQuery freeze() {
+        return isFrozen() ? this : new SelectQuery(this, true);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return rendered != null;
+    }
+
+    private void checkNotFrozen() {
+        FreezeSupport.checkNotFrozen(this);
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder sb) {
+        if (rendered != null) {
+            rendered.appendTo(sb);
+        } else {
+            render(sb);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered.toSafeSql() : SqlQuery.super.toSafeSql();
+    }
+
+    /**
+     * @return the lists of this query padded by a {@link InListPaddingCounter}, as this query is rendered
+     */
+    List<InCondition> countedLists() {
+        return rendered != null ? rendered.getCountedLists() : InListPaddingCounter.countedLists(transformed());
+    }
+
+    private void render(SafeSqlBuilder sb) {
+        transformed().renderClauses(sb);
+    }
+
+    /**
+     * @return this query transformed by its render options
+     */
+    private SelectQuery transformed() {
+        SelectQuery query = this;
+        if (removeUnusedLeftJoins) {
+            query = UnusedJoins.remove(query);
+        }
+        if (inListsAsArrays) {
+            query = IN_LISTS_AS_ARRAYS.transformSelect(query);
+        }
+        if (inListPadding != null) {
+            query = padInLists(query, inListPadding);
+        }
+        if (sortConditions) {
+            query = ConditionOrder.sort(query);
+        }
+        return query;
+    }
+
+    private void renderClauses(SafeSqlBuilder sb) {
         if (!ctes.isEmpty()) {
             sb.append("WITH ");
             sb.joinedSqlizables(", ", ctes);
@@ -245,43 +506,251 @@ public class SelectQuery implements WhereClause, SqlQuery {
             sb.append(" ORDER BY ").joinedSqlizables(", ", orders);
         }
         if (limit != null) {
-            sb.append(" LIMIT " + limit);
+            sb.append(" LIMIT ").param(limit);
+        }
+        if (offset != null) {
+            sb.append(" OFFSET ").param(offset);
         }
     }
 
     @Override
     public SelectQuery and(Condition condition) {
+        checkNotFrozen();
         conditions.add(condition);
         return this;
     }
 
     public SelectQuery distinct() {
+        checkNotFrozen();
         this.distinct = true;
         return this;
     }
 
+    /**
+     * Enables or disables the removal of unused <code>LEFT JOIN</code>s when this query is rendered. A left join is
+     * unused when its alias is only referenced by its own <code>ON</code> clause.
+     *
+     * <p>This is only correct when every removed join matches at most one row, for example when it joins on a unique
+     * key, otherwise removing it changes the number of rows of the result. Only references through an {@link Alias}
+     * are detected: a query selecting an unqualified <code>*</code> keeps all its joins, and unqualified columns or
+     * raw sql must not reference the joined tables.
+     *
+     * @param remove <code>true</code> to remove unused left joins
+     * @return a reference to this object
+     */
+    public SelectQuery removeUnusedLeftJoins(boolean remove) {
+        checkNotFrozen();
+        this.removeUnusedLeftJoins = remove;
+        return this;
+    }
+
+    /**
+     * Enables or disables the rendering of conditions in a canonical order, so that queries with the same conditions
+     * added in a different order render the same sql and share the same prepared statement. The conditions of the
+     * <code>WHERE</code>, <code>HAVING</code> and <code>ON</code> clauses and of the groups of this query and of its
+     * sub queries are sorted by their sql, without their parameters.
+     *
+     * @param sort <code>true</code> to sort the conditions
+     * @return a reference to this object
+     */
+    public SelectQuery sortConditions(boolean sort) {
+        checkNotFrozen();
+        this.sortConditions = sort;
+        return this;
+    }
+
+    /**
+     * Enables or disables the rendering of the <code>IN</code> lists of values of this query and of its sub queries
+     * with a single array parameter, whose type is deduced from the values.
+     *
+     * @param asArrays <code>true</code> to render lists of values as arrays
+     * @return a reference to this object
+     * @see InCondition#asArray()
+     */
+    public SelectQuery inListsAsArrays(boolean asArrays) {
+        checkNotFrozen();
+        this.inListsAsArrays = asArrays;
+        return this;
+    }
+
+    /**
+     * Sets the strategy padding the <code>IN</code> lists of this query and of its sub queries. The lists rendered
+     * with an array parameter are not padded.
+     *
+     * @param padding padding strategy, or <code>null</code> to not pad the lists
+     * @return a reference to this object
+     * @see InCondition#padded(InListPadding)
+     */
+    public SelectQuery inListPadding(InListPadding padding) {
+        checkNotFrozen();
+        this.inListPadding = padding;
+        return this;
+    }
+
     public SelectQuery limit(int limit) {
+        checkNotFrozen();
         this.limit = limit;
         return this;
     }
 
     public SelectQuery noLimit() {
+        checkNotFrozen();
         this.limit = null;
         return this;
     }
 
+    /**
+     * Skips the given number of rows. The skipped rows are still computed by the database: prefer
+     * {@link #seekAfter(List)} to fetch deep pages.
+     *
+     * @param offset number of rows to skip
+     * @return a reference to this object
+     */
+    public SelectQuery offset(int offset) {
+        checkNotFrozen();
+        this.offset = offset;
+        return this;
+    }
+
+    public SelectQuery noOffset() {
+        checkNotFrozen();
+        this.offset = null;
+        return this;
+    }
+
+    /**
+     * Restricts this query to the rows following the given row in the <code>ORDER BY</code> order, for keyset
+     * pagination: with <code>ORDER BY a ASC, b ASC</code>, adds the condition <code>(a, b) &gt; (?, ?)</code>. When
+     * the directions are mixed, the row comparison is expanded: <code>ORDER BY a ASC, b DESC</code> gives
+     * <code>(a &gt; ? OR (a = ? AND b &lt; ?))</code>.
+     *
+     * <p>Unlike an offset, the database can seek directly to the next page through an index on the ordered columns.
+     * The ordered columns must not be <code>null</code> and must identify a row, e.g. end with a unique key.
+     *
+     * @param lastValues values of the ordered columns of the last row of the previous page, in the order of the
+     * <code>ORDER BY</code> clause
+     * @return a reference to this object
+     */
+    public SelectQuery seekAfter(List<? extends Operand> lastValues) {
+        checkNotFrozen();
+        if (orders.isEmpty()) {
+            throw new BuilderException("Keyset pagination requires an ORDER BY clause");
+        }
+        if (lastValues.size() != orders.size()) {
+            throw new BuilderException("Keyset pagination requires " + orders.size() + " values, got " + lastValues.size());
+        }
+        conditions.add(seekCondition(0, lastValues));
+        return this;
+    }
+
+    public SelectQuery seekAfter(Operand... lastValues) {
+        return seekAfter(Arrays.asList(lastValues));
+    }
+
+    private Condition seekCondition(int from, List<? extends Operand> lastValues) {
+        Order order = orders.get(from).getOrder();
+        boolean sameOrder = true;
+        for (int i = from + 1; i < orders.size(); i++) {
+            sameOrder &= orders.get(i).getOrder() == order;
+        }
+        ComparisonOperator operator = order == Order.ASC ? ComparisonOperator.GT : ComparisonOperator.LT;
+        if (from == orders.size() - 1) {
+            return Condition.create(orderColumn(from), operator, lastValues.get(from));
+        } else if (sameOrder) {
+            List<Operand> columns = new ArrayList<>();
+            for (int i = from; i < orders.size(); i++) {
+                columns.add(orderColumn(i));
+            }
+            return Condition.create(new Row(columns), operator, new Row(new ArrayList<>(lastValues.subList(from, lastValues.size()))));
+        }
+        // a > ? OR (a = ? AND seek(b, ...))
+        return Condition.or(Condition.create(orderColumn(from), operator, lastValues.get(from)),
+                Condition.and(Condition.eq(orderColumn(from), lastValues.get(from)), seekCondition(from + 1, lastValues)));
+    }
+
+    private Column orderColumn(int index) {
+        OrderElement order = orders.get(index);
+        return new Column(order.getAlias(), order.getColumn());
+    }
+
     public SelectQuery orderBy(String column, Order order) {
+        checkNotFrozen();
         orders.add(new OrderElement(null, column, order));
         return this;
     }
 
     public SelectQuery orderBy(Alias alias, String column, Order order) {
+        checkNotFrozen();
         orders.add(new OrderElement(alias, column, order));
         return this;
     }
 
+    /**
+     * Returns a query counting the rows of this query, without its <code>ORDER BY</code>, <code>LIMIT</code> and
+     * <code>OFFSET</code> clauses, e.g. to count the total number of rows of a paginated query. The count query shares
+     * the clauses of this query and is not frozen.
+     *
+     * <p>The selected columns are replaced by <code>count(*)</code>. A distinct or grouped query is wrapped instead:
+     * <code>SELECT count(*) FROM (SELECT DISTINCT ...) AS q</code>. If unused left joins are removed from this query,
+     * the joins only referenced by the selected columns are also removed from the count query. A query aggregating
+     * rows without a <code>GROUP BY</code> clause always returns one row and must not be counted this way.
+     *
+     * @return a query counting the rows of this query
+     * @see #removeUnusedLeftJoins(boolean)
+     */
+    public SelectQuery toCountQuery() {
+        SelectQuery query = new SelectQuery(this);
+        query.orders.clear();
+        query.limit = null;
+        query.offset = null;
+        Call count = new Call("count", new Constant("*"));
+        if (distinct || !groupBy.isEmpty() || !havings.isEmpty()) {
+            SelectQuery outer = new SelectQuery();
+            outer.select(count).from(query, outer.generate("q"));
+            return outer;
+        }
+        query.selects.clear();
+        query.selects.add(count);
+        // named windows can only be referenced by the selected columns and the ORDER BY clause
+        query.windows.clear();
+        return query;
+    }
+
+    SelectQuery transform(QueryTransformer transformer) {
+        List<CommonTableExpression> newCtes = QueryTransformer.transformAll(ctes, transformer::transformCommonTableExpression);
+        List<Operand> newSelects = QueryTransformer.transformAll(selects, transformer::transformOperand);
+        List<From> newFroms = QueryTransformer.transformAll(froms, transformer::transformFrom);
+        List<Condition> newConditions = transformer.transformConditions(conditions);
+        List<Operand> newGroupBy = QueryTransformer.transformAll(groupBy, transformer::transformOperand);
+        List<Condition> newHavings = transformer.transformConditions(havings);
+        List<NamedWindow> newWindows = QueryTransformer.transformAll(windows, window -> (NamedWindow) transformer.transformWindow(window));
+        List<OrderElement> newOrders = QueryTransformer.transformAll(orders, order -> (OrderElement) order.accept(transformer));
+        if (newCtes == ctes && newSelects == selects && newFroms == froms && newConditions == conditions
+                && newGroupBy == groupBy && newHavings == havings && newWindows == windows && newOrders == orders) {
+            return this;
+        }
+        SelectQuery copy = new SelectQuery(this);
+        replace(copy.ctes, ctes, newCtes);
+        replace(copy.selects, selects, newSelects);
+        replace(copy.froms, froms, newFroms);
+        replace(copy.conditions, conditions, newConditions);
+        replace(copy.groupBy, groupBy, newGroupBy);
+        replace(copy.havings, havings, newHavings);
+        replace(copy.windows, windows, newWindows);
+        replace(copy.orders, orders, newOrders);
+        return isFrozen() ? copy.freeze() : copy;
+    }
+
+    private static <E> void replace(List<E> target, List<E> original, List<E> transformed) {
+        if (transformed != original) {
+            target.clear();
+            target.addAll(transformed);
+        }
+    }
+
     public static SelectQuery withContextOf(SelectQuery other) {
-        return new SelectQuery(other.context);
+        // The context of a frozen query is not shared, it must not be modified
+        return new SelectQuery(other.isFrozen() ? new BuilderContext(other.context) : other.context);
     }
 
 }
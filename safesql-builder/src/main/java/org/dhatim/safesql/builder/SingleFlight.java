@@ -0,0 +1,244 @@
+package org.dhatim.safesql.builder;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.dhatim.safesql.SafeSql;
+
+/**
+ * Executes queries so that concurrent executions of the same query share a single execution.
+ *
+ * <p>Queries are identified by their sql and parameters, see {@link SafeSql#equals(Object)}. The first caller of a query
+ * executes it with the loader function of this object, the callers of the same query arriving before it completes wait
+ * for its result instead of executing it again. If a staleness is set, the result also serves the callers arriving
+ * within this time after its completion. Failures are shared by the waiting callers but never reused.
+ *
+ * @param <V> type of the results
+ */
+public final class SingleFlight<V> {
+
+    /**
+     * A snapshot of the statistics of a single flight executor.
+     */
+    public static final class Stats {
+
+        private final long executions;
+        private final long coalesced;
+        private final long staleHits;
+        private final long failures;
+
+        Stats(long executions, long coalesced, long staleHits, long failures) {
+            this.executions = executions;
+            this.coalesced = coalesced;
+            this.staleHits = staleHits;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the number of calls to the loader
+         */
+        public long getExecutions() {
+            return executions;
+        }
+
+        /**
+         * @return the number of calls which waited for an execution in progress
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * @return the number of calls served by a completed execution, within the staleness
+         */
+        public long getStaleHits() {
+            return staleHits;
+        }
+
+        /**
+         * @return the number of executions which failed
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the ratio of calls which did not execute their query, 0 if there was no call
+         */
+        public double getSavedRate() {
+            long total = executions + coalesced + staleHits;
+            return total == 0 ? 0 : (double) (coalesced + staleHits) / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{executions=" + executions + ", coalesced=" + coalesced + ", staleHits=" + staleHits
+                    + ", failures=" + failures + "}";
+        }
+
+    }
+
+    private static final class Flight<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long completed;
+
+    }
+
+    /**
+     * Number of executions between two removals of the stale results.
+     */
+    private static final int EXPIRE_INTERVAL = 64;
+
+    private final Function<? super SafeSql, ? extends V> loader;
+    private final ConcurrentMap<SafeSql, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    private volatile long staleness;
+    private volatile LongSupplier ticker = System::nanoTime;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Number of executions counting towards the next removal of the stale results, exact under contention.
+     */
+    private final AtomicLong expireCounter = new AtomicLong();
+
+    /**
+     * Creates an executor without staleness: only the executions in progress are shared.
+     *
+     * @param loader function executing a query
+     */
+    public SingleFlight(Function<? super SafeSql, ? extends V> loader) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+    }
+
+    /**
+     * Sets the time during which a completed result still serves the callers of its query.
+     *
+     * @param staleness maximum age of a shared result, <code>null</code> or zero to only share executions in progress
+     * @return a reference to this object
+     */
+    public SingleFlight<V> staleness(Duration staleness) {
+        this.staleness = staleness == null ? 0 : staleness.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the source of time of this executor, in nanoseconds, {@link System#nanoTime()} by default.
+     *
+     * @param ticker source of time
+     * @return a reference to this object
+     */
+    public SingleFlight<V> ticker(LongSupplier ticker) {
+        this.ticker = Objects.requireNonNull(ticker, "ticker");
+        return this;
+    }
+
+    /**
+     * Executes a builder query, or waits for the execution of the same query in progress.
+     *
+     * @param query query to execute
+     * @return the result of the query
+     */
+    public V execute(SqlQuery query) {
+        return execute(query.toSafeSql());
+    }
+
+    /**
+     * Executes a query, or waits for the execution of the same query in progress.
+     *
+     * @param sql query to execute
+     * @return the result of the query
+     */
+    public V execute(SafeSql sql) {
+        while (true) {
+            Flight<V> flight = flights.get(sql);
+            if (flight == null) {
+                flight = new Flight<>();
+                Flight<V> existing = flights.putIfAbsent(sql, flight);
+                if (existing == null) {
+                    return lead(sql, flight);
+                }
+                flight = existing;
+            }
+            if (!flight.future.isDone()) {
+                coalesced.increment();
+                return await(flight);
+            }
+            if (!flight.future.isCompletedExceptionally() && ticker.getAsLong() - flight.completed < staleness) {
+                staleHits.increment();
+                return flight.future.join();
+            }
+            flights.remove(sql, flight);
+        }
+    }
+
+    private V lead(SafeSql sql, Flight<V> flight) {
+        executions.increment();
+        if (staleness > 0 && expireCounter.incrementAndGet() % EXPIRE_INTERVAL == 0) {
+            expire();
+        }
+        V value;
+        try {
+            value = loader.apply(sql);
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            flights.remove(sql, flight);
+            flight.future.completeExceptionally(e);
+            throw e;
+        }
+        flight.completed = ticker.getAsLong();
+        if (staleness <= 0) {
+            flights.remove(sql, flight);
+        }
+        flight.future.complete(value);
+        return value;
+    }
+
+    private V await(Flight<V> flight) {
+        try {
+            return flight.future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void expire() {
+        long now = ticker.getAsLong();
+        for (Iterator<Flight<V>> iterator = flights.values().iterator(); iterator.hasNext();) {
+            Flight<V> flight = iterator.next();
+            if (flight.future.isDone() && now - flight.completed >= staleness) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the number of queries in progress or whose result is kept for the staleness
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    public Stats stats() {
+        return new Stats(executions.sum(), coalesced.sum(), staleHits.sum(), failures.sum());
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.dhatim.safesql.builder;
+
+import java.util.Objects;
+import org.dhatim.safesql.SafeSqlBuilder;
+
+/**
+ * A named parameter whose value is given after rendering, see {@link PreparedQuery}. Slots with the same name are
+ * equal and receive the same value.
+ */
+public final class Slot implements Operand {
+
+    private final String name;
+
+    public Slot(String name) {
+        this.name = Objects.requireNonNull(name, "name");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void appendTo(SafeSqlBuilder builder) {
+        // the slot itself is the parameter until it is bound
+        builder.param(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Slot && name.equals(((Slot) obj).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Slot{" + name + "}";
+    }
+
+}
@@ -0,0 +1,435 @@
+package org.dhatim.safesql.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dhatim.safesql.PGArrayParameter;
+import org.dhatim.safesql.SafeSql;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * A key identifying the structure of a query tree, computed without rendering it. Two trees have equal keys when they
+ * render the same sql, so a key can be used to look up a cache before rendering a query.
+ *
+ * <p>A key is value sensitive, see {@link #of(SafeSqlizable)}: trees must also have equal parameters, compared deeply
+ * for arrays. A shape key is value insensitive, see {@link #shapeOf(SafeSqlizable)}: only the classes of the parameters
+ * are compared, so all the trees differing only by their values share the same shape key. The shape key of an
+ * <code>IN</code> list rendered as an array, see {@link InCondition#asArray()}, does not depend on its length. Lists
+ * rendered as arrays or padded by a render option of their query, like {@link SelectQuery#inListsAsArrays(boolean)},
+ * still have a shape key for each length.
+ *
+ * <p>The keys of frozen {@link SelectQuery}s are cached, so the key of a tree containing frozen sub queries does not
+ * walk them again. Operands unknown to the builder are identified by their rendered sql.
+ */
+public final class StructuralKey {
+
+    private static final Object NULL = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    private static final class Writer implements QueryVisitor<Void> {
+
+        private final boolean values;
+        private final List<Object> tokens = new ArrayList<>(128);
+
+        Writer(boolean values) {
+            this.values = values;
+        }
+
+        private Writer token(Object token) {
+            tokens.add(token == null ? NULL : token);
+            return this;
+        }
+
+        private Writer node(Expression node) {
+            if (node == null) {
+                tokens.add(NULL);
+            } else {
+                node.accept(this);
+            }
+            return this;
+        }
+
+        private Writer nodes(List<? extends Expression> nodes) {
+            token(nodes.size());
+            for (int i = 0; i < nodes.size(); i++) {
+                node(nodes.get(i));
+            }
+            return this;
+        }
+
+        private Writer value(Object value) {
+            if (values) {
+                token(value);
+            } else {
+                token(value == null ? null : value.getClass());
+            }
+            return this;
+        }
+
+        private Writer alias(Alias alias) {
+            return token(alias == null ? null : alias.getName());
+        }
+
+        private Writer operator(Object operator) {
+            return token(operator instanceof Enum ? operator : ((SafeSqlizable) operator).toSafeSql().asSql());
+        }
+
+        private Writer sql(SafeSql sql) {
+            token(sql.asSql());
+            Object[] parameters = sql.getParameters();
+            token(parameters.length);
+            for (Object parameter : parameters) {
+                value(parameter);
+            }
+            return this;
+        }
+
+        private Writer jointures(List<Jointure> jointures) {
+            token(jointures.size());
+            for (Jointure jointure : jointures) {
+                visit(jointure);
+            }
+            return this;
+        }
+
+        private Writer windows(List<? extends Window> windows) {
+            token(windows.size());
+            for (Window window : windows) {
+                visit(window);
+            }
+            return this;
+        }
+
+        StructuralKey toKey() {
+            return new StructuralKey(tokens.toArray());
+        }
+
+        @Override
+        public Void visitOther(SafeSqlizable node) {
+            token(node.getClass()).sql(node.toSafeSql());
+            return null;
+        }
+
+        @Override
+        public Void visit(Column column) {
+            token(Column.class).alias(column.getAlias()).token(column.getName());
+            return null;
+        }
+
+        @Override
+        public Void visit(BooleanColumn column) {
+            token(BooleanColumn.class).alias(column.getAlias()).token(column.getName()).token(column.isNegative());
+            return null;
+        }
+
+        @Override
+        public Void visit(Value value) {
+            token(value.getClass()).value(value.value());
+            return null;
+        }
+
+        @Override
+        public Void visit(Slot slot) {
+            token(Slot.class).token(slot.getName());
+            return null;
+        }
+
+        @Override
+        public Void visit(Literal literal) {
+            // a literal is part of the sql, whatever the variant
+            token(Literal.class).token(literal.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(Constant constant) {
+            token(Constant.class).token(constant.getSql());
+            return null;
+        }
+
+        @Override
+        public Void visit(Call call) {
+            token(Call.class).token(call.getFunctionName()).nodes(Arrays.asList(call.arguments()));
+            return null;
+        }
+
+        @Override
+        public Void visit(Cast cast) {
+            token(Cast.class).token(cast.getSqlType()).node(cast.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(Concat concat) {
+            token(Concat.class).nodes(concat.getOperands());
+            return null;
+        }
+
+        @Override
+        public Void visit(Compute compute) {
+            token(Compute.class).token(compute.getOperator()).node(compute.getLeftOperand()).node(compute.getRightOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(UnaryCompute compute) {
+            token(UnaryCompute.class).token(compute.getOperator()).node(compute.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(Row row) {
+            token(Row.class).nodes(row.getElements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Case<?> clause) {
+            if (clause.getClass() != Case.ConditionalCase.class && clause.getClass() != Case.SimpleCase.class) {
+                return visitOther(clause);
+            }
+            token(clause.getClass());
+            if (clause instanceof Case.SimpleCase) {
+                node(((Case.SimpleCase) clause).getExpression());
+            }
+            token(clause.getWhens().size());
+            for (Case.When<?> when : clause.getWhens()) {
+                // the expression of a branch is a condition or a value
+                node((Expression) when.getExpression()).node(when.getResult());
+            }
+            node(clause.getElse());
+            return null;
+        }
+
+        @Override
+        public Void visit(NamedOperand operand) {
+            token(NamedOperand.class).alias(operand.getAlias()).node(operand.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(QueryOperand operand) {
+            token(QueryOperand.class).node(operand.getQuery());
+            return null;
+        }
+
+        @Override
+        public Void visit(Over over) {
+            token(Over.class).node(over.getWindowFunction()).visit(over.getWindow());
+            return null;
+        }
+
+        @Override
+        public Void visit(BooleanOperand operand) {
+            token(BooleanOperand.class).token(operand.isNegative()).node(operand.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(ConditionGroup group) {
+            token(ConditionGroup.class).token(group.getOperator()).token(group.isSortConditions()).nodes(group.getConditions());
+            return null;
+        }
+
+        @Override
+        public Void visit(AbstractCondition<?, ?, ?> condition) {
+            token(condition.getClass()).operator(condition.getOperator()).node(condition.getLeft());
+            if (condition instanceof InCondition) {
+                InCondition in = (InCondition) condition;
+                token(in.getArrayType()).token(in.getPadding());
+                if (in.isArray() && !values) {
+                    // a single array parameter, whatever the length of the list
+                    token(PGArrayParameter.class);
+                    return null;
+                }
+            }
+            node(condition.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visit(BetweenCondition condition) {
+            token(BetweenCondition.class).token(condition.getOperator())
+                    .node(condition.getLeft()).node(condition.getLow()).node(condition.getHigh());
+            return null;
+        }
+
+        @Override
+        public Void visit(NullCondition condition) {
+            token(NullCondition.class).token(condition.isNullTest()).node(condition.getOperand());
+            return null;
+        }
+
+        @Override
+        public Void visit(SelectQuery query) {
+            // a sub query is a single token, whose key is cached when the query is frozen
+            token(query.isFrozen() ? query.structuralKey(values) : compute(query, values));
+            return null;
+        }
+
+        Void write(SelectQuery query) {
+            token(SelectQuery.class).token(query.isDistinct());
+            if (values) {
+                token(query.getLimit()).token(query.getOffset());
+            } else {
+                token(query.getLimit() != null).token(query.getOffset() != null);
+            }
+            for (Object option : query.getRenderOptions()) {
+                token(option);
+            }
+            token(query.getCommonTableExpressions().size());
+            for (CommonTableExpression cte : query.getCommonTableExpressions()) {
+                visit(cte);
+            }
+            nodes(query.getSelects());
+            token(query.getFroms().size());
+            for (From from : query.getFroms()) {
+                visit(from);
+            }
+            nodes(query.getConditions()).nodes(query.getGroupBys()).nodes(query.getHavings()).windows(query.getWindows());
+            token(query.getOrders().size());
+            for (SelectQuery.OrderElement order : query.getOrders()) {
+                visit(order);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Values values) {
+            token(Values.class).nodes(values.getRows());
+            return null;
+        }
+
+        @Override
+        public Void visit(SafeSqlQuery query) {
+            token(SafeSqlQuery.class).sql(query.getSql());
+            return null;
+        }
+
+        @Override
+        public Void visit(InsertQuery query) {
+            token(InsertQuery.class).token(query.getSchema()).token(query.getTableName()).token(query.getColumns());
+            token(query.getCommonTableExpressions().size());
+            for (CommonTableExpression cte : query.getCommonTableExpressions()) {
+                visit(cte);
+            }
+            node(query.getQuery());
+            return null;
+        }
+
+        @Override
+        public Void visit(CommonTableExpression cte) {
+            token(CommonTableExpression.class).token(cte.getName()).token(cte.getColumnNames()).node(cte.getQuery());
+            return null;
+        }
+
+        @Override
+        public Void visit(From from) {
+            token(From.class).token(from.getSchema()).token(from.getTableName()).alias(from.getAlias())
+                    .token(from.getColumnAliases()).node(from.getQuery()).jointures(from.getJointures());
+            return null;
+        }
+
+        @Override
+        public Void visit(Jointure jointure) {
+            token(Jointure.class).token(jointure.getType()).token(jointure.getSchema()).token(jointure.getTableName())
+                    .alias(jointure.getAlias()).nodes(jointure.getConditions()).jointures(jointure.getJointures());
+            return null;
+        }
+
+        @Override
+        public Void visit(Window window) {
+            if (window.getClass() != Window.class && window.getClass() != NamedWindow.class) {
+                return visitOther(window);
+            }
+            token(window.getClass());
+            if (window instanceof NamedWindow) {
+                token(((NamedWindow) window).getName());
+            }
+            nodes(window.getPartition());
+            return null;
+        }
+
+        @Override
+        public Void visit(SelectQuery.OrderElement order) {
+            token(SelectQuery.OrderElement.class).alias(order.getAlias()).token(order.getColumn()).token(order.getOrder());
+            return null;
+        }
+
+    }
+
+    private final Object[] tokens;
+    private final int hash;
+
+    private StructuralKey(Object[] tokens) {
+        this.tokens = tokens;
+        this.hash = Arrays.deepHashCode(tokens);
+    }
+
+    /**
+     * Returns the value sensitive key of a query tree.
+     *
+     * @param node root of the tree
+     * @return a key equal to the keys of the trees rendering the same sql with equal parameters
+     */
+    public static StructuralKey of(SafeSqlizable node) {
+        return compute(node, true);
+    }
+
+    /**
+     * Returns the value insensitive key of a query tree.
+     *
+     * @param node root of the tree
+     * @return a key equal to the keys of the trees rendering the same sql with parameters of the same classes
+     */
+    public static StructuralKey shapeOf(SafeSqlizable node) {
+        return compute(node, false);
+    }
+
+    private static StructuralKey compute(SafeSqlizable node, boolean values) {
+        if (node instanceof SelectQuery) {
+            SelectQuery query = (SelectQuery) node;
+            return query.isFrozen() ? query.structuralKey(values) : compute(query, values);
+        }
+        Writer writer = new Writer(values);
+        if (node instanceof Expression) {
+            writer.node((Expression) node);
+        } else {
+            writer.visitOther(node);
+        }
+        return writer.toKey();
+    }
+
+    static StructuralKey compute(SelectQuery query, boolean values) {
+        Writer writer = new Writer(values);
+        writer.write(query);
+        return writer.toKey();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof StructuralKey) {
+            StructuralKey other = (StructuralKey) obj;
+            return hash == other.hash && Arrays.deepEquals(tokens, other.tokens);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "StructuralKey" + Arrays.deepToString(tokens);
+    }
+
+}
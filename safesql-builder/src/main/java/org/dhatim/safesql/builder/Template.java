@@ -2,62 +2,30 @@ package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.dhatim.safesql.SafeSqlBuilder;
-import org.dhatim.safesql.SafeSqlizable;
 
 public class Template {
 
-    private static interface Element {
-
-        SafeSqlizable generate(Operand[] parameters);
-
-    }
-
-    private static class Parameter implements Element {
-
-        private final int index;
-
-        public Parameter(int index) {
-            this.index = index;
-        }
-
-        @Override
-        public SafeSqlizable generate(Operand[] parameters) {
-            if (index > parameters.length) {
-                throw new IndexOutOfBoundsException("Index " + index + " in " + parameters.length + " parameters (index 0-based)");
-            }
-            return parameters[index - 1];
-        }
-
-    }
-
-    private static class Constant extends org.dhatim.safesql.builder.Constant implements Element {
-
-        public Constant(String sql) {
-            super(sql);
-        }
-
-        @Override
-        public SafeSqlizable generate(Operand[] parameters) {
-            return this;
-        }
-
-    }
-
     protected class TemplateOperand implements Operand {
 
-        private final SafeSqlizable[] elements;
+        private final Operand[] parameters;
 
-        public TemplateOperand(SafeSqlizable[] elements) {
-            this.elements = elements.clone();
+        public TemplateOperand(Operand[] parameters) {
+            this.parameters = parameters.clone();
         }
 
         @Override
         public void appendTo(SafeSqlBuilder builder) {
-            for (SafeSqlizable element : elements) {
-                builder.append(element);
+            for (int i = 0; i < slots.length; i++) {
+                builder.append(fragments[i]).append(parameters[slots[i]]);
             }
+            builder.append(fragments[slots.length]);
+        }
+
+        public Operand[] getParameters() {
+            return parameters.clone();
         }
 
         public Template getTemplate() {
@@ -66,59 +34,94 @@ public class Template {
 
     }
 
+    /**
+     * Maximum number of templates kept by {@link #of(String)}, once reached new templates are compiled but not cached.
+     */
+    private static final int CACHE_SIZE = 1024;
+    private static final ConcurrentMap<String, Template> CACHE = new ConcurrentHashMap<>();
+
     private final String pattern;
-    private final ArrayList<Element> elements = new ArrayList<>();
+
+    /**
+     * Constant sql around parameters: parameter <code>slots[i]</code> is written between <code>fragments[i]</code>
+     * and <code>fragments[i + 1]</code>.
+     */
+    private final String[] fragments;
+    private final int[] slots;
+    private final int arity;
 
     protected Template(String pattern) {
         this.pattern = pattern;
-        compile(pattern, elements);
+        List<String> fragmentList = new ArrayList<>();
+        List<Integer> slotList = new ArrayList<>();
+        compile(pattern, fragmentList, slotList);
+        this.fragments = fragmentList.toArray(new String[fragmentList.size()]);
+        this.slots = new int[slotList.size()];
+        int max = 0;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = slotList.get(i);
+            max = Math.max(max, slots[i] + 1);
+        }
+        this.arity = max;
     }
 
-    protected void compile(String pattern, List<Element> toList) {
-        StringTokenizer tokenizer = new StringTokenizer(pattern, "{}", true);
-        boolean parameter = false;
-        while (tokenizer.hasMoreTokens()) {
-            String token = tokenizer.nextToken();
-            switch (token) {
-                case "{":
-                    parameter = true;
-                    break;
-                case "}":
-                    parameter = false;
-                    break;
-                default:
-                    toList.add(parameter ? toParameter(token) : new Constant(token));
-                    break;
+    private static void compile(String pattern, List<String> fragments, List<Integer> slots) {
+        int start = 0;
+        int open = pattern.indexOf('{');
+        while (open != -1) {
+            int close = pattern.indexOf('}', open + 1);
+            if (close == -1) {
+                throw new IllegalArgumentException("Unclosed parameter at " + open + " in template " + pattern);
             }
+            fragments.add(pattern.substring(start, open));
+            slots.add(toSlot(pattern.substring(open + 1, close)));
+            start = close + 1;
+            open = pattern.indexOf('{', start);
         }
+        fragments.add(pattern.substring(start));
+    }
+
+    private static int toSlot(String value) {
+        int index = Integer.parseInt(value);
+        if (index <= 0) {
+            throw new IndexOutOfBoundsException("index < 0 is not valid for SafeSql templates");
+        }
+        return index - 1;
     }
 
     public String getPattern() {
         return pattern;
     }
 
-    public static Template of(String pattern) {
-        return new Template(pattern);
+    /**
+     * Returns the number of parameters this template requires, i.e. the highest parameter index of the pattern.
+     *
+     * @return the number of parameters
+     */
+    public int getArity() {
+        return arity;
     }
 
-    private static Parameter toParameter(String value) {
-        int index = Integer.parseInt(value);
-        if (index <= 0) {
-            throw new IndexOutOfBoundsException("index < 0 is not valid for SafeSql templates");
+    public static Template of(String pattern) {
+        Template template = CACHE.get(pattern);
+        if (template == null) {
+            template = new Template(pattern);
+            if (CACHE.size() < CACHE_SIZE) {
+                CACHE.putIfAbsent(pattern, template);
+            }
         }
-        return new Parameter(index);
+        return template;
     }
 
     public Operand generate(Operand... parameters) {
-        SafeSqlizable[] parts = new SafeSqlizable[elements.size()];
-        for (int i=0; i<elements.size(); i++) {
-            parts[i] = elements.get(i).generate(parameters);
+        if (parameters.length < arity) {
+            throw new IndexOutOfBoundsException("Template " + pattern + " requires " + arity + " parameters, got " + parameters.length);
         }
-        return create(parts);
+        return create(parameters);
     }
 
-    protected Operand create(SafeSqlizable[] parts) {
-        return new TemplateOperand(parts);
+    protected Operand create(Operand[] parameters) {
+        return new TemplateOperand(parameters);
     }
 
 }
@@ -20,6 +20,11 @@ public class UnaryCompute implements Operand {
         return operator;
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.append(operator).append("(").append(operand).append(")");
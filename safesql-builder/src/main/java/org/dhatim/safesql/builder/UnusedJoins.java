@@ -0,0 +1,110 @@
+package org.dhatim.safesql.builder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.dhatim.safesql.SafeSqlizable;
+
+/**
+ * Removes the <code>LEFT JOIN</code>s of a query whose alias is only referenced by their own <code>ON</code> clause.
+ *
+ * <p>Such a join adds no column to the result, but it still duplicates rows when several joined rows match: removing
+ * it is only correct when it matches at most one row, e.g. on a unique key. Only references through an {@link Alias}
+ * are seen, unqualified columns and raw sql are assumed not to reference the joined tables.
+ */
+final class UnusedJoins {
+
+    private static class AliasCounter extends QueryTransformer {
+
+        private final Map<Alias, Integer> counts = new HashMap<>();
+
+        /**
+         * <code>true</code> when an unqualified <code>*</code> selects the columns of all the tables.
+         */
+        private boolean all;
+
+        private void count(Alias alias) {
+            if (alias != null) {
+                counts.merge(alias, 1, Integer::sum);
+            }
+        }
+
+        int get(Alias alias) {
+            return counts.getOrDefault(alias, 0);
+        }
+
+        @Override
+        public SafeSqlizable visit(Column column) {
+            if (column.getAlias() == null && "*".equals(column.getName())) {
+                all = true;
+            }
+            count(column.getAlias());
+            return column;
+        }
+
+        @Override
+        public SafeSqlizable visit(SelectQuery.OrderElement order) {
+            count(order.getAlias());
+            return order;
+        }
+
+        @Override
+        public SafeSqlizable visitOther(SafeSqlizable node) {
+            if (node instanceof Template.TemplateOperand) {
+                for (Operand parameter : ((Template.TemplateOperand) node).getParameters()) {
+                    transformOperand(parameter);
+                }
+            }
+            return node;
+        }
+
+    }
+
+    private UnusedJoins() {
+    }
+
+    static SelectQuery remove(SelectQuery query) {
+        SelectQuery result = query;
+        Set<Jointure> unused = findUnused(result);
+        while (!unused.isEmpty()) {
+            // removing a join may leave the joins only referenced by its ON clause unused
+            result = remove(result, unused);
+            unused = findUnused(result);
+        }
+        return result;
+    }
+
+    private static Set<Jointure> findUnused(SelectQuery query) {
+        Set<Jointure> unused = Collections.newSetFromMap(new IdentityHashMap<>());
+        AliasCounter counter = new AliasCounter();
+        counter.transformSelect(query);
+        if (counter.all) {
+            return unused;
+        }
+        for (From from : query.getFroms()) {
+            for (Jointure jointure : from.getJointures()) {
+                Alias alias = jointure.getAlias();
+                if (jointure.getType() == JointureType.LEFT_OUTER && alias != null && jointure.getJointures().isEmpty()) {
+                    AliasCounter own = new AliasCounter();
+                    jointure.getConditions().forEach(own::transformCondition);
+                    if (own.get(alias) == counter.get(alias)) {
+                        unused.add(jointure);
+                    }
+                }
+            }
+        }
+        return unused;
+    }
+
+    private static SelectQuery remove(SelectQuery query, Set<Jointure> unused) {
+        return new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(Jointure jointure) {
+                return unused.contains(jointure) ? null : jointure;
+            }
+        }.transformSelect(query);
+    }
+
+}
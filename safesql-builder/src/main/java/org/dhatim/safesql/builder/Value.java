@@ -17,6 +17,11 @@ public class Value implements Operand {
         return SafeSqlUtils.escape(data);
     }
 
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         builder.param(data);
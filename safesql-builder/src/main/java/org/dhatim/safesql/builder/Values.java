@@ -2,6 +2,7 @@ package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.dhatim.safesql.SafeSqlBuilder;
 
@@ -20,6 +21,15 @@ private final ArrayList<Row> rows = new ArrayList<>();
         this.rows.addAll(rows);
     }
 
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
         validate();
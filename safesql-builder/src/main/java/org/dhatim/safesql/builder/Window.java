@@ -2,35 +2,81 @@ package org.dhatim.safesql.builder;
 
 import java.util.ArrayList;
 import java.util.List;
+import org.dhatim.safesql.SafeSql;
 import org.dhatim.safesql.SafeSqlBuilder;
 import org.dhatim.safesql.SafeSqlizable;
 
-public class Window implements SafeSqlizable {
+public class Window implements SafeSqlizable, Freezable<Window> {
 
-    private final List<Operand> partition = new ArrayList<>();
+    private final List<Operand> partition;
+    private final SafeSql rendered;
 
     protected Window() {
+        this.partition = new ArrayList<>();
+        this.rendered = null;
     }
 
     public Window(List<Operand> partition) {
+        this();
         this.partition.addAll(partition);
     }
 
+    /**
+     * Creates a frozen copy of the given window.
+     *
+     * @param other window to copy
+     */
+    protected Window(Window other) {
+        this.partition = FreezeSupport.freezeAll(other.partition);
+        SafeSqlBuilder sb = new SafeSqlBuilder();
+        other.render(sb);
+        this.rendered = sb.toSafeSql();
+    }
+
     public List<Operand> getPartition() {
         return new ArrayList<>(partition);
     }
 
     public void setPartition(List<Operand> newPartitions) {
+        FreezeSupport.checkNotFrozen(this);
         partition.clear();
         partition.addAll(newPartitions);
     }
 
     public void addPartition(Operand operand) {
+        FreezeSupport.checkNotFrozen(this);
         partition.add(operand);
     }
 
+    @Override
+    public Window freeze() {
+        return isFrozen() ? this : new Window(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return rendered != null;
+    }
+
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public void appendTo(SafeSqlBuilder builder) {
+        if (rendered != null) {
+            builder.append(rendered);
+        } else {
+            render(builder);
+        }
+    }
+
+    @Override
+    public SafeSql toSafeSql() {
+        return rendered != null ? rendered : SafeSqlizable.super.toSafeSql();
+    }
+
+    protected void render(SafeSqlBuilder builder) {
         builder.append("(PARTITION BY ")
                 .joinedSqlizables(", ", partition)
                 .append(')');
@@ -0,0 +1,47 @@
+package org.dhatim.safesql.builder;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Generates <code>count</code> aliases from the same suggestion on a new query. The score is the time of a whole run.
+ *
+ * <p>Run it with <code>mvn test-compile</code> and the {@link #main(String[])} method, with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AliasGenerationBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    private int count;
+
+    @Benchmark
+    public SelectQuery generate() {
+        SelectQuery query = new SelectQuery();
+        for (int i = 0; i < count; i++) {
+            query.generate("t");
+        }
+        return query;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AliasGenerationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
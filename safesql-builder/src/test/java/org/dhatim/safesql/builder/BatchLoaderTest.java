@@ -0,0 +1,208 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dhatim.safesql.SafeSql;
+import org.junit.Test;
+
+public class BatchLoaderTest {
+
+    /**
+     * Stand-in for a database holding lines of orders, as <code>{order_id, product}</code> rows.
+     */
+    private static class FakeDatabase {
+
+        private final List<SafeSql> queries = Collections.synchronizedList(new ArrayList<>());
+
+        List<Object[]> query(SafeSql sql) {
+            queries.add(sql);
+            List<Object[]> rows = new ArrayList<>();
+            String keys = sql.getParameters()[0].toString();
+            for (String key : keys.substring(1, keys.length() - 1).split(",")) {
+                int id = Integer.parseInt(key);
+                for (int i = 0; i < id % 3; i++) {
+                    rows.add(new Object[] { id, "p" + i });
+                }
+            }
+            return rows;
+        }
+
+    }
+
+    /**
+     * Decodes an array parameter the way PostgreSQL reads it.
+     */
+    private static List<String> decodeArray(String array) {
+        List<String> elements = new ArrayList<>();
+        StringBuilder element = null;
+        boolean quoted = false;
+        for (int i = 1; i < array.length() - 1; i++) {
+            char c = array.charAt(i);
+            if (quoted) {
+                if (c == '\\') {
+                    element.append(array.charAt(++i));
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    element.append(c);
+                }
+            } else if (c == ',') {
+                elements.add(element.toString());
+                element = null;
+            } else {
+                if (element == null) {
+                    element = new StringBuilder();
+                }
+                if (c == '"') {
+                    quoted = true;
+                } else {
+                    element.append(c);
+                }
+            }
+        }
+        if (element != null) {
+            elements.add(element.toString());
+        }
+        return elements;
+    }
+
+    private static BatchLoader<Integer, Object[]> loader(FakeDatabase database) {
+        SelectQuery query = new SelectQuery();
+        query.select("order_id").select("product").from("line");
+        return new BatchLoader<>(query, new Column("order_id"), database::query, row -> (Integer) row[0]);
+    }
+
+    @Test
+    public void testDispatch() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        BatchLoader<Integer, Object[]> loader = loader(database);
+        CompletableFuture<List<Object[]>> first = loader.load(1);
+        CompletableFuture<List<Object[]>> second = loader.load(2);
+        CompletableFuture<List<Object[]>> third = loader.load(3);
+        assertThat(loader.load(1)).isSameAs(first);
+        assertThat(first.isDone()).isFalse();
+
+        loader.dispatch();
+        assertThat(first.get()).hasSize(1);
+        assertThat(second.get()).hasSize(2);
+        assertThat(third.get()).isEmpty();
+        assertThat(database.queries).hasSize(1);
+        assertThat(database.queries.get(0))
+                .hasSql("SELECT order_id, product FROM line WHERE order_id = ANY(?::int4[])")
+                .hasParameters("{1,2,3}");
+        assertThat(loader.getBatches()).isEqualTo(1);
+        assertThat(loader.getKeys()).isEqualTo(3);
+
+        loader.dispatch();
+        assertThat(database.queries).hasSize(1);
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        BatchLoader<Integer, Object[]> loader = loader(database).maxBatchSize(2);
+        CompletableFuture<List<Object[]>> first = loader.load(4);
+        CompletableFuture<List<Object[]>> second = loader.load(5);
+        CompletableFuture<List<Object[]>> third = loader.load(7);
+        assertThat(first.isDone()).isTrue();
+        assertThat(second.get()).hasSize(2);
+        assertThat(third.isDone()).isFalse();
+        assertThat(database.queries.get(0)).hasParameters("{4,5}");
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            BatchLoader<Integer, Object[]> loader = loader(database).window(Duration.ofMillis(5), scheduler);
+            List<CompletableFuture<List<Object[]>>> futures = new ArrayList<>();
+            for (int id : Arrays.asList(1, 2, 4)) {
+                futures.add(loader.load(id));
+            }
+            for (CompletableFuture<List<Object[]>> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS)).hasSize(1 + futures.indexOf(future) % 2);
+            }
+            assertThat(database.queries).hasSize(1);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        BatchLoader<Integer, Object[]> loader = new BatchLoader<>(new SelectQuery(), new Column("id"), sql -> {
+            throw new IllegalStateException("connection lost");
+        }, row -> (Integer) row[0]);
+        CompletableFuture<List<Object[]>> future = loader.load(1);
+        loader.dispatch();
+        Throwable cause = null;
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            cause = e.getCause();
+        }
+        assertThat(cause).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testUnknownKeyType() throws Exception {
+        SelectQuery query = new SelectQuery();
+        query.select("at").from("event");
+        BatchLoader<LocalTime, Object[]> loader = new BatchLoader<>(query, new Column("at"),
+                sql -> new ArrayList<>(), row -> (LocalTime) row[0]);
+        CompletableFuture<List<Object[]>> future = loader.load(LocalTime.NOON);
+        loader.dispatch();
+        Throwable cause = null;
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            cause = e.getCause();
+        }
+        assertThat(cause).isInstanceOf(BuilderException.class);
+        assertThat(loader.arrayType("time").toQuery(Collections.singletonList(LocalTime.NOON)).toSafeSql())
+                .hasSql("SELECT at FROM event WHERE at = ANY(?::time[])");
+    }
+
+    @Test
+    public void testStringKeys() throws Exception {
+        List<String> names = Arrays.asList("a\"b", "c,d", "e\\f", "a", "b", "c", "d", "g");
+        List<List<String>> lookups = new ArrayList<>();
+        SelectQuery query = new SelectQuery();
+        query.select("name").from("customer");
+        BatchLoader<String, String> loader = new BatchLoader<>(query, new Column("name"), sql -> {
+            List<String> keys = decodeArray(sql.getParameters()[0].toString());
+            lookups.add(keys);
+            List<String> rows = new ArrayList<>();
+            for (String name : names) {
+                if (keys.contains(name)) {
+                    rows.add(name);
+                }
+            }
+            return rows;
+        }, row -> row);
+        List<String> keys = Arrays.asList("a\"b", "c,d", "e\\f", "g");
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+        for (String key : keys) {
+            futures.add(loader.load(key));
+        }
+        loader.dispatch();
+        assertThat(lookups).containsExactly(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            assertThat(futures.get(i).get()).containsExactly(keys.get(i));
+        }
+    }
+
+}
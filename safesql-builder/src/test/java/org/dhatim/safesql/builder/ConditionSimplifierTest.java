@@ -0,0 +1,83 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class ConditionSimplifierTest {
+
+    private static final Condition A = Condition.eq(new Column("a"), new Value(1));
+    private static final Condition B = Condition.eq(new Column("b"), new Value(2));
+    private static final Condition C = Condition.isNull(new Column("c"));
+
+    @Test
+    public void testFlatten() {
+        Condition condition = Condition.and(A, new ConditionGroup(Arrays.asList(B, Condition.and(C, A)), LogicalOperator.AND));
+        assertThat(ConditionSimplifier.simplify(condition).toSafeSql()).hasSql("(a = ? AND b = ? AND c IS NULL)").hasParameters(1, 2);
+    }
+
+    @Test
+    public void testDuplicates() {
+        Condition condition = Condition.or(A, B, Condition.eq(new Column("a"), new Value(1)), Condition.or(B, C));
+        assertThat(ConditionSimplifier.simplify(condition).toSafeSql()).hasSql("(a = ? OR b = ? OR c IS NULL)").hasParameters(1, 2);
+        Condition other = Condition.or(A, Condition.eq(new Column("a"), new Value(3)));
+        assertThat(ConditionSimplifier.simplify(other)).isSameAs(other);
+    }
+
+    @Test
+    public void testConstants() {
+        BooleanValue t = new BooleanValue(true);
+        BooleanValue f = new BooleanValue(false);
+        assertThat(ConditionSimplifier.simplify(Condition.and(A, t))).isSameAs(A);
+        assertThat(ConditionSimplifier.simplify(Condition.or(A, f, B)).toSafeSql()).hasSql("(a = ? OR b = ?)").hasParameters(1, 2);
+        assertThat(ConditionSimplifier.simplify(Condition.or(A, Condition.and(t, B), t)).toSafeSql()).hasSql("?").hasParameters(true);
+        assertThat(ConditionSimplifier.simplify(Condition.and(A, Condition.or(f, B), f)).toSafeSql()).hasSql("?").hasParameters(false);
+        assertThat(ConditionSimplifier.simplify(Condition.and(t, t)).toSafeSql()).hasSql("?").hasParameters(true);
+        assertThat(ConditionSimplifier.simplify(new BooleanOperand((Condition) f).negate()).toSafeSql()).hasSql("?").hasParameters(true);
+        assertThat(ConditionSimplifier.simplify(Condition.and(A, Condition.in(new Column("d")))).toSafeSql()).hasSql("?").hasParameters(false);
+        assertThat(ConditionSimplifier.simplify(Condition.and(A, Condition.in(new Column("d")).negate()))).isSameAs(A);
+    }
+
+    @Test
+    public void testQuery() {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1").innerJoin("table2").and(A).and(new BooleanValue(true));
+        query.and(A).and(Condition.and(B, A)).and(new BooleanValue(true)).and(C);
+        assertThat(ConditionSimplifier.simplify(query).toSafeSql())
+                .hasSql("SELECT id FROM table1 INNER JOIN table2 ON a = ? WHERE a = ? AND b = ? AND c IS NULL")
+                .hasParameters(1, 1, 2);
+
+        query.and(Condition.in(new Column("d")));
+        assertThat(ConditionSimplifier.simplify(query).toSafeSql())
+                .hasSql("SELECT id FROM table1 INNER JOIN table2 ON a = ? WHERE ?")
+                .hasParameters(1, false);
+
+        SelectQuery simple = new SelectQuery();
+        simple.select("id").from("table1");
+        simple.and(A).and(B);
+        assertThat(ConditionSimplifier.simplify(simple)).isSameAs(simple);
+    }
+
+    @Test
+    public void testJoinWithoutCondition() {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1").leftJoin("table2").and(new BooleanValue(true)).and(Condition.and(new BooleanValue(true), new BooleanValue(true)));
+        assertThat(ConditionSimplifier.simplify(query).toSafeSql())
+                .hasSql("SELECT id FROM table1 LEFT JOIN table2 ON ?")
+                .hasParameters(true);
+
+        SelectQuery simple = new SelectQuery();
+        simple.select("id").from("table1").leftJoin("table2").and(new BooleanValue(true));
+        assertThat(ConditionSimplifier.simplify(simple)).isSameAs(simple);
+    }
+
+    @Test
+    public void testDuplicateArrays() {
+        Condition condition = Condition.or(Condition.eq(new Column("data"), new Value(new byte[] {1, 2})),
+                Condition.eq(new Column("data"), new Value(new byte[] {1, 2})));
+        assertThat(ConditionSimplifier.simplify(condition).toSafeSql()).hasSql("data = ?");
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+public class DependencyAnalyzerTest {
+
+    @Test
+    public void testSelect() {
+        SelectQuery recent = new SelectQuery();
+        recent.select("id").from("archive", "orders");
+        recent.and(Condition.isNotNull(new Column("closed")));
+
+        SelectQuery query = new SelectQuery();
+        query.with("recent", recent);
+        Alias o = query.generate("o");
+        SelectQuery sub = new SelectQuery();
+        Alias s = sub.generate("s");
+        sub.select(new Call("max", new Column(s, "price"))).from("item", s);
+        sub.and(Condition.eq(new Column(s, "order_id"), new Column(o, "id")));
+
+        Alias l = query.generate("l");
+        Alias r = query.generate("r");
+        query.select(new Column(o, "id")).select(new QueryOperand(sub), query.generate("price"));
+        query.from("orders", o).leftJoin("line", l).and(Condition.eq(new Column(l, "order_id"), new Column(o, "id")));
+        query.from("recent", r);
+        query.and(Condition.eq(new Column(r, "id"), new Column(o, "id")));
+        query.orderBy(o, "created", Order.DESC);
+
+        DependencyAnalyzer.Dependencies dependencies = DependencyAnalyzer.analyze(query);
+        assertThat(dependencies.getReadTables()).containsExactly("archive.orders", "item", "orders", "line");
+        assertThat(dependencies.getWrittenTables()).isEmpty();
+        assertThat(dependencies.getReadColumns().get("archive.orders")).containsExactly("id", "closed");
+        assertThat(dependencies.getReadColumns().get("item")).containsExactly("price", "order_id");
+        assertThat(dependencies.getReadColumns().get("orders")).containsExactly("id", "created");
+        assertThat(dependencies.getReadColumns().get("line")).containsExactly("order_id");
+    }
+
+    @Test
+    public void testInsert() {
+        SelectQuery select = new SelectQuery();
+        select.select("id").select("name").from("customer");
+        InsertQuery insert = new InsertQuery("sales", "client", Arrays.asList("id", "name"), select);
+        DependencyAnalyzer.Dependencies dependencies = DependencyAnalyzer.analyze(insert);
+        assertThat(dependencies.getReadTables()).containsExactly("customer");
+        assertThat(dependencies.getWrittenTables()).containsExactly("sales.client");
+        assertThat(dependencies.getWrittenColumns().get("sales.client")).containsExactly("id", "name");
+        assertThat(dependencies.getReadColumns().get("customer")).containsExactly("id", "name");
+    }
+
+    @Test
+    public void testShadowingCommonTableExpression() {
+        SelectQuery body = new SelectQuery();
+        body.select("id").from("orders");
+        body.and(Condition.eq(new Column("status"), new Value(1)));
+        SelectQuery query = new SelectQuery();
+        query.with("orders", body);
+        query.select("id").from("orders");
+        assertThat(DependencyAnalyzer.analyze(query).getReadTables()).containsExactly("orders");
+        assertThat(DependencyAnalyzer.analyze(query).getReadColumns().get("orders")).containsExactly("id", "status");
+        assertThat(ResultCache.tablesOf(query)).containsExactly("orders");
+
+        // the name is only visible in the query defining the expression, elsewhere "recent" is a table
+        SelectQuery body2 = new SelectQuery();
+        body2.select("id").from("orders");
+        SelectQuery withRecent = new SelectQuery();
+        withRecent.with("recent", body2);
+        withRecent.select("id").from("recent");
+        SelectQuery recent = new SelectQuery();
+        recent.select("id").from("recent");
+        SelectQuery outer = new SelectQuery();
+        Alias q = outer.generate("q");
+        outer.select(new Column(q, "id")).from(withRecent, q);
+        outer.and(Condition.in(new Column(q, "id"), new QueryOperand(recent)));
+        assertThat(DependencyAnalyzer.analyze(outer).getReadTables()).containsExactly("orders", "recent");
+    }
+
+}
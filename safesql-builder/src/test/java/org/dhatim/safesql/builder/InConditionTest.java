@@ -0,0 +1,18 @@
+package org.dhatim.safesql.builder;
+
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class InConditionTest {
+
+    @Test
+    public void testArrayEscaping() {
+        InCondition in = ((InCondition) Condition.in(new Column("name"), new Value("foo\",\"admin"), new Value("x\\y"),
+                new Value("NULL"), new Value(""))).asArray();
+        assertThat(in.toSafeSql())
+                .hasSql("name = ANY(?::text[])")
+                .hasParameters("{\"foo\\\",\\\"admin\",\"x\\\\y\",\"NULL\",\"\"}");
+    }
+
+}
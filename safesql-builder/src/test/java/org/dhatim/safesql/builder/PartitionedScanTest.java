@@ -0,0 +1,115 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.dhatim.safesql.SafeSql;
+import org.junit.Test;
+
+public class PartitionedScanTest {
+
+    private static final List<Integer> IDS = Arrays.asList(3, 250, 42, 120, 7, 199, 200, 101, 64);
+
+    private static SelectQuery query(boolean ordered) {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("orders");
+        query.and(Condition.eq(new Column("status"), new Value(1)));
+        if (ordered) {
+            query.orderBy("id", Order.DESC);
+        }
+        return query;
+    }
+
+    /**
+     * Stand-in for a database, returning the ids of a range partition, in descending order.
+     */
+    private static List<Integer> rangeQuery(SafeSql sql) {
+        Object[] parameters = sql.getParameters();
+        int low = sql.asSql().contains("id >= ?") ? (Integer) parameters[1] : Integer.MIN_VALUE;
+        int high = sql.asSql().contains("id < ?") ? (Integer) parameters[parameters.length - 1] : Integer.MAX_VALUE;
+        List<Integer> rows = new ArrayList<>();
+        for (int id : IDS) {
+            if (id >= low && id < high) {
+                rows.add(id);
+            }
+        }
+        rows.sort(Comparator.reverseOrder());
+        return rows;
+    }
+
+    @Test
+    public void testByRange() {
+        PartitionedScan scan = PartitionedScan.byRange(query(false), new Column("id"), Arrays.asList(100, 200));
+        List<SelectQuery> queries = scan.getQueries();
+        assertThat(queries).hasSize(3);
+        assertThat(queries.get(0).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND id < ?")
+                .hasParameters(1, 100);
+        assertThat(queries.get(1).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND (id >= ? AND id < ?)")
+                .hasParameters(1, 100, 200);
+        assertThat(queries.get(2).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND (id >= ? OR id IS NULL)")
+                .hasParameters(1, 200);
+
+        // descending order: the partitions are reversed, the nulls sort first
+        List<SelectQuery> descending = PartitionedScan.byRange(query(true), new Column("id"), Arrays.asList(100, 200)).getQueries();
+        assertThat(descending.get(0).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND (id >= ? OR id IS NULL) ORDER BY id DESC");
+        assertThat(descending.get(2).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND id < ? ORDER BY id DESC");
+
+        assertThat(PartitionedScan.byRange(query(false), new Column("id"), 1, 10, 4).getQueries()).hasSize(4);
+        assertThat(PartitionedScan.byRange(query(false), new Column("id"), 1, 2, 4).getQueries()).hasSize(2);
+    }
+
+    @Test
+    public void testByModulus() {
+        PartitionedScan scan = PartitionedScan.byModulus(query(false), new Column("id"), 2);
+        assertThat(scan.getQueries().get(0).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND (abs(mod(id, ?)) = ? OR id IS NULL)")
+                .hasParameters(1, 2, 0);
+        assertThat(scan.getQueries().get(1).toSafeSql())
+                .hasSql("SELECT id FROM orders WHERE status = ? AND abs(mod(id, ?)) = ?")
+                .hasParameters(1, 2, 1);
+    }
+
+    @Test
+    public void testExecute() {
+        PartitionedScan scan = PartitionedScan.byRange(query(true), new Column("id"), Arrays.asList(100, 200));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Integer> rows = scan.execute(PartitionedScanTest::rangeQuery, executor);
+            assertThat(rows).containsExactly(250, 200, 199, 120, 101, 64, 42, 7, 3);
+            List<Integer> ordered = scan.executeOrdered(PartitionedScanTest::rangeQuery, executor, Comparator.<Integer>reverseOrder());
+            assertThat(ordered).containsExactly(250, 200, 199, 120, 101, 64, 42, 7, 3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnorderedBounds() {
+        PartitionedScan.byRange(query(false), new Column("id"), Arrays.asList(200, 100));
+    }
+
+    @Test(expected = BuilderException.class)
+    public void testLimit() {
+        SelectQuery query = query(true);
+        query.limit(10);
+        PartitionedScan.byModulus(query, new Column("id"), 4);
+    }
+
+    @Test(expected = BuilderException.class)
+    public void testMergeWithoutOrder() {
+        PartitionedScan scan = PartitionedScan.byModulus(query(false), new Column("id"), 2);
+        scan.executeOrdered(sql -> new ArrayList<Integer>(), Runnable::run, Comparator.<Integer>naturalOrder());
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class PreparedQueryTest {
+
+    private static final Slot STATUS = new Slot("status");
+    private static final Slot KIND = new Slot("kind");
+
+    private static PreparedQuery prepare() {
+        SelectQuery query = new SelectQuery();
+        Alias o = query.generate("o");
+        query.select(new Column(o, "id")).from("orders", o);
+        query.and(Condition.eq(new Column(o, "status"), STATUS));
+        query.and(Condition.or(Condition.eq(new Column(o, "kind"), new Slot("kind")), Condition.eq(new Column(o, "parent_kind"), KIND)));
+        query.and(Condition.eq(new Column(o, "active"), new Value(true)));
+        return PreparedQuery.of(query);
+    }
+
+    @Test
+    public void testBindMap() {
+        PreparedQuery prepared = prepare();
+        assertThat(prepared.getSlotNames()).containsExactly("status", "kind");
+        Map<String, Object> values = new HashMap<>();
+        values.put("status", 1);
+        values.put("kind", "a");
+        values.put("other", 2);
+        assertThat(prepared.bind(values))
+                .hasSql("SELECT o.id FROM orders o WHERE o.status = ? AND (o.kind = ? OR o.parent_kind = ?) AND o.active = ?")
+                .hasParameters(1, "a", "a", true);
+        values.put("status", 2);
+        assertThat(prepared.bind(values)).hasParameters(2, "a", "a", true);
+    }
+
+    @Test
+    public void testBindSlot() {
+        PreparedQuery prepared = prepare();
+        PreparedQuery partial = prepared.with(KIND, "b");
+        assertThat(partial.bind(STATUS, 3)).hasParameters(3, "b", "b", true);
+        assertThat(partial.bind(STATUS, null)).hasParameters(null, "b", "b", true);
+        assertThat(prepared.with(KIND, "c").bind(STATUS, 4)).hasParameters(4, "c", "c", true);
+
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("orders");
+        query.and(Condition.eq(new Column("status"), new Value(5)));
+        SelectQuery template = new SelectQuery();
+        template.select("id").from("orders");
+        template.and(Condition.eq(new Column("status"), STATUS));
+        assertThat(PreparedQuery.of(template).bind(STATUS, 5)).isEqualTo(query.toSafeSql());
+    }
+
+    @Test(expected = BuilderException.class)
+    public void testUnboundSlot() {
+        prepare().bind(STATUS, 1);
+    }
+
+    @Test(expected = BuilderException.class)
+    public void testUnknownSlot() {
+        prepare().with(new Slot("unknown"), 1);
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.dhatim.safesql.SafeSqlizable;
+import org.junit.Test;
+
+public class QueryTransformerTest {
+
+    private static SelectQuery createQuery() {
+        SelectQuery sub = new SelectQuery();
+        Alias s = sub.generate("s");
+        sub.select(new Call("max", new Column(s, "price"))).from("item", s);
+        sub.and(Condition.eq(new Column(s, "kind"), new Value(2)));
+
+        SelectQuery query = new SelectQuery();
+        Alias o = query.generate("o");
+        Alias l = query.generate("l");
+        query.select(new Column(o, "id"));
+        query.select(Case.create(Condition.isNull(new Column(l, "id")), new Value(0), new QueryOperand(sub)), query.generate("price"));
+        query.from("orders", o).leftJoin("line", l).and(Condition.eq(new Column(l, "order_id"), new Column(o, "id")));
+        query.and(Condition.or(Condition.eq(new Column(o, "status"), new Value(1)), Condition.between(new Column(o, "total"), new Value(10), new Value(20))));
+        query.and(Condition.in(new Column(o, "type"), new Value(3), new Value(4)));
+        return query;
+    }
+
+    @Test
+    public void testIdentity() {
+        SelectQuery query = createQuery();
+        assertThat(new QueryTransformer().transformSelect(query)).isSameAs(query);
+        SelectQuery frozen = query.freeze();
+        assertThat(new QueryTransformer().transformSelect(frozen)).isSameAs(frozen);
+    }
+
+    @Test
+    public void testIdentityCaseAndCall() {
+        Case.ConditionalCase conditional = Case.create(Condition.isNull(new Column("a")), new Call("coalesce", new Column("b"), new Value(1)), new Value(2));
+        conditional.add(Condition.eq(new Column("c"), new Value(3)), new Call("lower", new Column("d")));
+        Case.SimpleCase simple = Case.create(new Call("upper", new Column("e")), new Value("X"), new Value(4), conditional);
+        QueryTransformer identity = new QueryTransformer();
+        assertThat(identity.transformOperand(simple)).isSameAs(simple);
+        assertThat(identity.transformOperand(conditional)).isSameAs(conditional);
+        Call call = new Call("f", simple, new Column("g"));
+        assertThat(identity.transformOperand(call)).isSameAs(call);
+
+        // only the second branch changes: the first one is kept
+        QueryTransformer renameD = new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(Column column) {
+                return column.getName().equals("d") ? new Column("dd") : column;
+            }
+        };
+        assertThat(renameD.transformOperand(conditional).toSafeSql())
+                .hasSql("CASE WHEN a IS NULL THEN coalesce(b, ?) WHEN c = ? THEN lower(dd) ELSE ? END")
+                .hasParameters(1, 3, 2);
+        assertThat(conditional.toSafeSql())
+                .hasSql("CASE WHEN a IS NULL THEN coalesce(b, ?) WHEN c = ? THEN lower(d) ELSE ? END");
+    }
+
+    @Test
+    public void testReplaceValues() {
+        SelectQuery query = createQuery();
+        String sql = "SELECT o.id, CASE WHEN l.id IS NULL THEN ? ELSE (SELECT max(s.price) FROM item s WHERE s.kind = ?) END AS price "
+                + "FROM orders o LEFT JOIN line l ON l.order_id = o.id WHERE (o.status = ? OR o.total BETWEEN ? AND ?) AND o.type IN (?, ?)";
+        QueryTransformer transformer = new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(Value value) {
+                return new Value(((Integer) value.value()) * 10);
+            }
+        };
+
+        SelectQuery transformed = transformer.transformSelect(query);
+        assertThat(transformed.toSafeSql()).hasSql(sql).hasParameters(0, 20, 10, 100, 200, 30, 40);
+        assertThat(query.toSafeSql()).hasSql(sql).hasParameters(0, 2, 1, 10, 20, 3, 4);
+
+        SelectQuery frozen = transformer.transformSelect(query.freeze());
+        assertThat(frozen.isFrozen()).isTrue();
+        assertThat(frozen.toSafeSql()).hasSql(sql).hasParameters(0, 20, 10, 100, 200, 30, 40);
+    }
+
+    @Test
+    public void testRemoveConditions() {
+        QueryTransformer transformer = new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(NullCondition condition) {
+                return null;
+            }
+        };
+        SelectQuery query = createQuery();
+        query.and(Condition.isNotNull(new Column("x")));
+        SelectQuery transformed = transformer.transformSelect(query);
+        assertThat(transformed.getConditions()).hasSize(2);
+        assertThat(transformed.getSelects().get(1).toSafeSql())
+                .hasSql("(SELECT max(s.price) FROM item s WHERE s.kind = ?) AS price");
+
+        Condition group = Condition.or(Condition.isNull(new Column("a")), Condition.eq(new Column("b"), new Value(1)));
+        assertThat(transformer.transformCondition(group).toSafeSql()).hasSql("b = ?").hasParameters(1);
+        assertThat(transformer.transformCondition(Condition.and(Condition.isNull(new Column("a")), Condition.isNull(new Column("b"))))).isNull();
+    }
+
+    @Test
+    public void testCollectTables() {
+        List<String> tables = new ArrayList<>();
+        new QueryTransformer() {
+            @Override
+            public SafeSqlizable visit(From from) {
+                if (from.getTableName() != null) {
+                    tables.add(from.getTableName());
+                }
+                return super.visit(from);
+            }
+
+            @Override
+            public SafeSqlizable visit(Jointure jointure) {
+                tables.add(jointure.getTableName());
+                return super.visit(jointure);
+            }
+        }.transformSelect(createQuery());
+        assertThat(tables).containsExactly("item", "orders", "line");
+    }
+
+    @Test
+    public void testVisitor() {
+        QueryVisitor<String> visitor = new QueryVisitor<String>() {
+            @Override
+            public String visitOther(SafeSqlizable node) {
+                return "other";
+            }
+
+            @Override
+            public String visit(Column column) {
+                return "column " + column.getName();
+            }
+        };
+        assertThat(new Column("a").accept(visitor)).isEqualTo("column a");
+        assertThat(new BooleanColumn(null, "b").accept(visitor)).isEqualTo("column b");
+        assertThat(new Value(1).accept(visitor)).isEqualTo("other");
+        assertThat(((Operand) sb -> sb.append("x")).accept(visitor)).isEqualTo("other");
+    }
+
+}
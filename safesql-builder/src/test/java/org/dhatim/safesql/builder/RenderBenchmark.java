@@ -0,0 +1,63 @@
+package org.dhatim.safesql.builder;
+
+import java.util.concurrent.TimeUnit;
+import org.dhatim.safesql.SafeSql;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Renders a query with 11 selected columns, one of them a <code>CASE</code>, a join and 11 conditions. The query is
+ * not frozen, so each call renders the whole tree.
+ *
+ * <p>Run it with <code>mvn test-compile</code> and the {@link #main(String[])} method, with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    private SelectQuery query;
+
+    @Setup
+    public void setUp() {
+        query = new SelectQuery();
+        Alias orders = query.generate("o");
+        Alias customers = query.generate("c");
+        for (int i = 0; i < 10; i++) {
+            query.select(orders, "column" + i);
+        }
+        query.select(Case.create(Condition.isNull(new Column(customers, "id")), new Value("none"),
+                new Column(customers, "name")), query.generate("customer"));
+        query.from("orders", orders)
+                .leftJoin("customers", customers)
+                .and(Condition.eq(new Column(customers, "id"), new Column(orders, "customer_id")));
+        for (int i = 0; i < 10; i++) {
+            query.and(Condition.eq(new Column(orders, "column" + i), new Value(i)));
+        }
+        query.and(Condition.in(new Column(orders, "status"), new Value("new"), new Value("paid")));
+    }
+
+    @Benchmark
+    public SafeSql render() {
+        return query.toSafeSql();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RenderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
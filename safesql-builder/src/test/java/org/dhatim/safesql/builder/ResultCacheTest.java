@@ -0,0 +1,141 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dhatim.safesql.SafeSql;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+    /**
+     * In-memory stand-in for a database, returning the same rows for every query on a table.
+     */
+    private static class FakeDatabase {
+
+        private final Map<String, List<String>> rows = new HashMap<>();
+        private int executions;
+
+        List<String> query(SafeSql sql) {
+            executions++;
+            List<String> result = new ArrayList<>();
+            for (Map.Entry<String, List<String>> table : rows.entrySet()) {
+                if (sql.asSql().contains(" " + table.getKey() + " ")) {
+                    result.addAll(table.getValue());
+                }
+            }
+            return result;
+        }
+
+        void insert(String table, String row) {
+            rows.computeIfAbsent(table, t -> new ArrayList<>()).add(row);
+        }
+
+    }
+
+    private static SelectQuery byStatus(int status) {
+        SelectQuery query = new SelectQuery();
+        Alias o = query.generate("o");
+        Alias c = query.generate("c");
+        query.select(new Column(o, "id"));
+        query.from("orders", o).join(JointureType.INNER, "sales", "customer", c).and(Condition.eq(new Column(c, "id"), new Column(o, "customer_id")));
+        query.and(Condition.eq(new Column(o, "status"), new Value(status)));
+        return query;
+    }
+
+    @Test
+    public void testTables() {
+        SelectQuery sub = new SelectQuery();
+        sub.select("id").from("line");
+        SelectQuery query = byStatus(1);
+        query.with("recent", sub);
+        query.from("recent");
+        assertThat(ResultCache.tablesOf(query)).containsExactly("line", "orders", "sales.customer");
+    }
+
+    @Test
+    public void testHitsAndInvalidation() {
+        FakeDatabase database = new FakeDatabase();
+        database.insert("orders", "o1");
+        ResultCache<List<String>> cache = new ResultCache<>(10);
+
+        assertThat(cache.get(byStatus(1), database::query)).containsExactly("o1");
+        database.insert("orders", "o2");
+        assertThat(cache.get(byStatus(1), database::query)).containsExactly("o1");
+        assertThat(cache.get(byStatus(2), database::query)).containsExactly("o1", "o2");
+        assertThat(database.executions).isEqualTo(2);
+
+        assertThat(cache.invalidateTable("customer")).isEqualTo(0);
+        assertThat(cache.invalidateTable("sales.customer")).isEqualTo(2);
+        assertThat(cache.get(byStatus(1), database::query)).containsExactly("o1", "o2");
+        assertThat(database.executions).isEqualTo(3);
+
+        ResultCache.Stats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1L);
+        assertThat(stats.getMisses()).isEqualTo(3L);
+        assertThat(stats.getInvalidations()).isEqualTo(2L);
+        assertThat(stats.getHitRate()).isEqualTo(0.25);
+    }
+
+    @Test
+    public void testWeightEviction() {
+        ResultCache<List<String>> cache = new ResultCache<List<String>>(3).weigher(List::size);
+        SafeSql a = SafeSql.constant("SELECT a");
+        SafeSql b = SafeSql.constant("SELECT b");
+        SafeSql c = SafeSql.constant("SELECT c");
+        cache.put(a, Collections.singleton("t"), Arrays.asList("1"));
+        cache.put(b, Collections.singleton("t"), Arrays.asList("1"));
+        assertThat(cache.getIfPresent(a)).containsExactly("1");
+        cache.put(c, Collections.singleton("t"), Arrays.asList("1", "2"));
+        // b is the least recently used
+        assertThat(cache.getIfPresent(b)).isNull();
+        assertThat(cache.getIfPresent(a)).containsExactly("1");
+        assertThat(cache.weight()).isEqualTo(3L);
+        cache.put(b, Collections.singleton("t"), Arrays.asList("1", "2", "3", "4"));
+        assertThat(cache.getIfPresent(b)).isNull();
+        assertThat(cache.stats().getEvictions()).isEqualTo(2L);
+        assertThat(cache.invalidateTable("t")).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.weight()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testExpiration() {
+        AtomicLong time = new AtomicLong();
+        ResultCache<String> cache = new ResultCache<String>(10).expireAfterWrite(Duration.ofSeconds(10)).ticker(time::get);
+        SafeSql sql = SafeSql.constant("SELECT 1");
+        cache.put(sql, Collections.emptySet(), "1");
+        time.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(cache.getIfPresent(sql)).isEqualTo("1");
+        time.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.getIfPresent(sql)).isNull();
+        assertThat(cache.stats().getExpirations()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testInvalidationDuringLoad() {
+        FakeDatabase database = new FakeDatabase();
+        database.insert("orders", "o1");
+        ResultCache<List<String>> cache = new ResultCache<>(10);
+
+        // another thread writes the table while the query is executed
+        assertThat(cache.get(byStatus(1), sql -> {
+            List<String> result = database.query(sql);
+            database.insert("orders", "o2");
+            cache.invalidateTable("orders");
+            return result;
+        })).containsExactly("o1");
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.get(byStatus(1), database::query)).containsExactly("o1", "o2");
+        assertThat(cache.get(byStatus(1), database::query)).containsExactly("o1", "o2");
+        assertThat(database.executions).isEqualTo(2);
+    }
+
+}
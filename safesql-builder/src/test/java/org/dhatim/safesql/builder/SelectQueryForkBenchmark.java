@@ -0,0 +1,64 @@
+package org.dhatim.safesql.builder;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Copies a query with 30 left joins, 31 selected columns, 30 conditions and an <code>ORDER BY</code>, alone or to
+ * derive a page of it.
+ *
+ * <p>Run it with <code>mvn test-compile</code> and the {@link #main(String[])} method, with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectQueryForkBenchmark {
+
+    private SelectQuery base;
+
+    @Setup
+    public void setUp() {
+        base = new SelectQuery();
+        base.select("id");
+        From from = base.from("main");
+        for (int i = 0; i < 30; i++) {
+            from.leftJoin("table" + i).and(Condition.eq(new Column("ref" + i), new Column("id" + i)));
+            base.select("column" + i);
+            base.and(Condition.eq(new Column("column" + i), new Value(i)));
+        }
+        base.orderBy("id", Order.ASC);
+    }
+
+    @Benchmark
+    public SelectQuery fork() {
+        return new SelectQuery(base);
+    }
+
+    @Benchmark
+    public SelectQuery forkPage() {
+        SelectQuery page = new SelectQuery(base);
+        page.limit(20);
+        page.and(Condition.isNull(new Column("deleted")));
+        return page;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SelectQueryForkBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -1,8 +1,11 @@
 package org.dhatim.safesql.builder;
 
-import static org.dhatim.safesql.assertion.Assertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
 import static org.dhatim.safesql.builder.Value.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import org.junit.Test;
 
 public class SelectQueryTest {
@@ -86,6 +89,327 @@ public class SelectQueryTest {
         assertThat(qb.toSafeSql()).hasSql("SELECT t1.id FROM table_name t1, other_table t1_1, other_other_table t1_2 WHERE t1.name = ?").hasParameters("Lucie");
     }
     
+    @Test
+    public void testNegatedBooleanColumn() {
+        SelectQuery qb = new SelectQuery();
+        qb.select("id");
+        qb.from("table1");
+        qb.and(new BooleanColumn(null, "enabled").negate());
+        qb.and(Condition.or(new BooleanColumn(null, "a"), new BooleanColumn(null, "b").negate()));
+        assertThat(qb.toSafeSql()).hasSql("SELECT id FROM table1 WHERE NOT enabled AND (a OR NOT b)").hasEmptyParameters();
+    }
+
+    @Test
+    public void testRemoveUnusedLeftJoins() {
+        SelectQuery qb = new SelectQuery();
+        Alias a = qb.generate("a");
+        Alias b = qb.generate("b");
+        Alias c = qb.generate("c");
+        Alias d = qb.generate("d");
+        Alias e = qb.generate("e");
+        qb.select(new Column(b, "name"));
+        From from = qb.from("table_a", a);
+        from.leftJoin("table_b", b).and(Condition.eq(new Column(b, "id"), new Column(a, "b_id")));
+        from.leftJoin("table_c", c).and(Condition.eq(new Column(c, "id"), new Column(a, "c_id")));
+        from.leftJoin("table_d", d).and(Condition.eq(new Column(d, "id"), new Column(c, "d_id")));
+        from.innerJoin("table_e", e).and(Condition.eq(new Column(e, "id"), new Column(a, "e_id")));
+        String all = "SELECT b.name FROM table_a a LEFT JOIN table_b b ON b.id = a.b_id LEFT JOIN table_c c ON c.id = a.c_id "
+                + "LEFT JOIN table_d d ON d.id = c.d_id INNER JOIN table_e e ON e.id = a.e_id";
+        assertThat(qb.toSafeSql()).hasSql(all);
+
+        qb.removeUnusedLeftJoins(true);
+        assertThat(qb.toSafeSql()).hasSql("SELECT b.name FROM table_a a LEFT JOIN table_b b ON b.id = a.b_id INNER JOIN table_e e ON e.id = a.e_id");
+        assertThat(qb.freeze().toSafeSql()).hasSql("SELECT b.name FROM table_a a LEFT JOIN table_b b ON b.id = a.b_id INNER JOIN table_e e ON e.id = a.e_id");
+
+        SelectQuery ordered = new SelectQuery(qb).orderBy(d, "rank", Order.ASC);
+        assertThat(ordered.toSafeSql()).hasSql(all + " ORDER BY d.rank ASC");
+
+        SelectQuery star = new SelectQuery(qb);
+        star.clearSelects();
+        star.select(Column.all());
+        assertThat(star.toSafeSql()).hasSql(all.replace("b.name", "\"*\""));
+
+        qb.removeUnusedLeftJoins(false);
+        assertThat(qb.toSafeSql()).hasSql(all);
+    }
+
+    @Test
+    public void testConditionGroupWithOthers() {
+        Condition condition = Condition.and(Condition.isNull(new Column("a")), Condition.isNull(new Column("b")), Condition.isNull(new Column("c")));
+        assertThat(condition.toSafeSql()).hasSql("(a IS NULL AND b IS NULL AND c IS NULL)");
+    }
+
+    @Test
+    public void testSortConditions() {
+        Condition a = Condition.eq(new Column("a"), new Value(1));
+        Condition b = Condition.isNull(new Column("b"));
+        Condition c = Condition.eq(new Column("c"), new Value(3));
+        Condition d = Condition.eq(new Column("d"), new Value(4));
+
+        SelectQuery q1 = new SelectQuery();
+        q1.select("id").from("table1");
+        q1.and(c).and(Condition.or(d, a)).and(b);
+        q1.sortConditions(true);
+        SelectQuery q2 = new SelectQuery();
+        q2.select("id").from("table1");
+        q2.and(b).and(Condition.or(a, d)).and(c);
+        q2.sortConditions(true);
+
+        String sql = "SELECT id FROM table1 WHERE (a = ? OR d = ?) AND b IS NULL AND c = ?";
+        assertThat(q1.toSafeSql()).hasSql(sql).hasParameters(1, 4, 3);
+        assertThat(q2.toSafeSql()).hasSql(sql).hasParameters(1, 4, 3);
+        assertThat(q1.freeze().toSafeSql()).hasSql(sql).hasParameters(1, 4, 3);
+
+        q1.sortConditions(false);
+        assertThat(q1.toSafeSql()).hasSql("SELECT id FROM table1 WHERE c = ? AND (d = ? OR a = ?) AND b IS NULL");
+
+        ConditionGroup group = (ConditionGroup) Condition.and(c, b, a);
+        assertThat(group.toSafeSql()).hasSql("(c = ? AND b IS NULL AND a = ?)");
+        assertThat(group.sortConditions(true).toSafeSql()).hasSql("(a = ? AND b IS NULL AND c = ?)").hasParameters(1, 3);
+        assertThat(group.negate().toSafeSql()).hasSql("(a <> ? OR b IS NOT NULL OR c <> ?)");
+    }
+
+    @Test
+    public void testInAsArray() {
+        InCondition in = (InCondition) Condition.in(new Column("id"), new Value(1L), new Value(2L), new Value(3L));
+        assertThat(in.asArray().toSafeSql()).hasSql("id = ANY(?::int8[])")
+                .hasParameters("{1,2,3}");
+        assertThat(in.asArray().negate().toSafeSql()).hasSql("id <> ALL(?::int8[])");
+        assertThat(in.asArray("int4").getArrayType()).isEqualTo("int4");
+        assertThat(((InCondition) Condition.in(new Column("id"), new Value(1), new Value("a"))).asArray().getArrayType()).isNull();
+        assertThat(((InCondition) Condition.in(new Column("id"), new Column("a"))).asArray("int4").toSafeSql()).hasSql("id IN (a)");
+
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.and(Condition.in(new Column("id"), new Value(1), new Value(2)));
+        query.and(Condition.notIn(new Column("name"), new Value("a"), new Value(null)));
+        query.inListsAsArrays(true);
+        String sql = "SELECT id FROM table1 WHERE id = ANY(?::int4[]) AND name <> ALL(?::text[])";
+        assertThat(query.toSafeSql()).hasSql(sql).hasParameters("{1,2}", "{\"a\",NULL}");
+        assertThat(query.freeze().toSafeSql()).hasSql(sql);
+        query.inListsAsArrays(false);
+        assertThat(query.toSafeSql()).hasSql("SELECT id FROM table1 WHERE id IN (?, ?) AND name NOT IN (?, ?)");
+    }
+
+    @Test
+    public void testArrayTypeName() {
+        InCondition in = (InCondition) Condition.in(new Column("id"), new Value(1L));
+        assertThat(in.asArray("timestamp with time zone").toSafeSql()).hasSql("id = ANY(?::timestamp with time zone[])");
+        assertThat(in.asArray("numeric(10, 2)").getArrayType()).isEqualTo("numeric(10, 2)");
+        assertThat(in.asArray("public.my_type").getArrayType()).isEqualTo("public.my_type");
+        for (String type : Arrays.asList("int4[]) OR TRUE --", "text'", "", "int4 ")) {
+            try {
+                in.asArray(type);
+                throw new AssertionError("Accepted " + type);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSortedGroupInListsAsArrays() {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        ConditionGroup group = (ConditionGroup) Condition.or(Condition.eq(new Column("c"), new Value(3)),
+                Condition.in(new Column("a"), new Value(1), new Value(2)));
+        query.and(group.sortConditions(true));
+        query.inListsAsArrays(true);
+        String sql = "SELECT id FROM table1 WHERE (a = ANY(?::int4[]) OR c = ?)";
+        assertThat(query.toSafeSql()).hasSql(sql).hasParameters("{1,2}", 3);
+        assertThat(query.freeze().toSafeSql()).hasSql(sql);
+        ConditionGroup withConstant = (ConditionGroup) Condition.or(Condition.eq(new Column("c"), new Value(3)),
+                new BooleanValue(false), Condition.isNull(new Column("a")));
+        assertThat(ConditionSimplifier.simplify(withConstant.sortConditions(true)).toSafeSql())
+                .hasSql("(a IS NULL OR c = ?)");
+    }
+
+    @Test
+    public void testInListPadding() {
+        InListPadding buckets = InListPadding.powersOfTwo(8);
+        assertThat(buckets.paddedSize(1)).isEqualTo(1);
+        assertThat(buckets.paddedSize(3)).isEqualTo(4);
+        assertThat(buckets.paddedSize(5)).isEqualTo(8);
+        assertThat(buckets.paddedSize(8)).isEqualTo(8);
+        assertThat(buckets.paddedSize(9)).isEqualTo(9);
+
+        InCondition in = (InCondition) Condition.in(new Column("id"), new Value(1), new Value(2), new Value(3));
+        assertThat(in.padded(buckets).toSafeSql()).hasSql("id IN (?, ?, ?, ?)").hasParameters(1, 2, 3, 3);
+        assertThat(in.padded(buckets).negate().toSafeSql()).hasSql("id NOT IN (?, ?, ?, ?)");
+        assertThat(in.padded(buckets).asArray().toSafeSql()).hasSql("id = ANY(?::int4[])");
+
+        InListPaddingCounter counter = new InListPaddingCounter(buckets);
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.and(in);
+        query.inListPadding(counter);
+        assertThat(query.toSafeSql()).hasSql("SELECT id FROM table1 WHERE id IN (?, ?, ?, ?)").hasParameters(1, 2, 3, 3);
+        assertThat(counter.getPaddedLists()).isEqualTo(1L);
+        counter.reset();
+        for (int size = 1; size <= 8; size++) {
+            Operand[] values = new Operand[size];
+            Arrays.fill(values, new Value(size));
+            query.and(((InCondition) Condition.in(new Column("x"), values)).padded(counter));
+        }
+        query.toSafeSql();
+        assertThat(counter.getLists()).isEqualTo(9L);
+        assertThat(counter.getPaddedLists()).isEqualTo(5L);
+        assertThat(counter.getAddedElements()).isEqualTo(8L);
+        assertThat(counter.getShapes()).isEqualTo(4);
+        assertThat(counter.getSavedShapes()).isEqualTo(4);
+    }
+
+    @Test
+    public void testInListPaddingCountedOnce() {
+        InListPaddingCounter counter = new InListPaddingCounter(InListPadding.powersOfTwo(8));
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.and(Condition.in(new Column("b"), new Value(1), new Value(2), new Value(3)));
+        query.and(Condition.in(new Column("a"), new Value(1), new Value(2)));
+        query.sortConditions(true).inListPadding(counter);
+        query.toString();
+        assertThat(query.toSafeSql()).hasSql("SELECT id FROM table1 WHERE a IN (?, ?) AND b IN (?, ?, ?, ?)");
+        assertThat(counter.getLists()).isEqualTo(2L);
+        assertThat(counter.getPaddedLists()).isEqualTo(1L);
+        assertThat(counter.getAddedElements()).isEqualTo(1L);
+
+        SelectQuery frozen = query.freeze();
+        assertThat(counter.getLists()).isEqualTo(2L);
+        frozen.toSafeSql();
+        assertThat(counter.getLists()).isEqualTo(4L);
+        assertThat(counter.getShapes()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInListPaddingCountedWhenApplied() {
+        InListPaddingCounter counter = new InListPaddingCounter(InListPadding.powersOfTwo(8));
+        SelectQuery sub = new SelectQuery();
+        sub.select("id").from("table2");
+        sub.and(((InCondition) Condition.in(new Column("b"), new Value(1), new Value(2), new Value(3))).padded(counter));
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.and(Condition.in(new Column("id"), new QueryOperand(sub)));
+        query.toSafeSql();
+        assertThat(counter.getLists()).isEqualTo(1L);
+
+        SelectQuery frozen = sub.freeze();
+        assertThat(counter.getLists()).isEqualTo(1L);
+        SelectQuery outer = new SelectQuery();
+        outer.select("id").from("table1");
+        outer.and(Condition.in(new Column("id"), new QueryOperand(frozen)));
+        assertThat(outer.toSafeSql()).hasSql("SELECT id FROM table1 WHERE id IN ((SELECT id FROM table2 WHERE b IN (?, ?, ?, ?)))");
+        assertThat(counter.getLists()).isEqualTo(2L);
+        assertThat(counter.getAddedElements()).isEqualTo(2L);
+
+        for (int i = 0; i < 2 * InListPaddingCounter.MAX_SIZES; i++) {
+            InListPaddingCounter.count(null, counter, i, i);
+        }
+        assertThat(counter.getShapes()).isEqualTo(InListPaddingCounter.MAX_SIZES);
+    }
+
+    @Test
+    public void testLimitOffset() {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.limit(20).offset(40);
+        assertThat(query.toSafeSql()).hasSql("SELECT id FROM table1 LIMIT ? OFFSET ?").hasParameters(20, 40);
+        assertThat(query.freeze().getOffset()).isEqualTo(40);
+        assertThat(query.noLimit().noOffset().toSafeSql()).hasSql("SELECT id FROM table1").hasEmptyParameters();
+    }
+
+    @Test
+    public void testSeekAfter() {
+        SelectQuery query = new SelectQuery();
+        Alias t = query.generate("t");
+        query.select(new Column(t, "id")).from("table1", t);
+        query.orderBy(t, "created", Order.ASC).orderBy(t, "id", Order.ASC).limit(10);
+        query.seekAfter(new Value(5), new Value(12));
+        assertThat(query.toSafeSql()).hasSql("SELECT t.id FROM table1 t WHERE (t.created, t.id) > (?, ?) ORDER BY t.created ASC, t.id ASC LIMIT ?")
+                .hasParameters(5, 12, 10);
+
+        SelectQuery desc = new SelectQuery();
+        desc.select("id").from("table1");
+        desc.orderBy("id", Order.DESC);
+        desc.seekAfter(new Value(7));
+        assertThat(desc.toSafeSql()).hasSql("SELECT id FROM table1 WHERE id < ? ORDER BY id DESC").hasParameters(7);
+
+        SelectQuery mixed = new SelectQuery();
+        mixed.select("id").from("table1");
+        mixed.orderBy("a", Order.ASC).orderBy("b", Order.DESC).orderBy("c", Order.DESC);
+        mixed.seekAfter(new Value(1), new Value(2), new Value(3));
+        assertThat(mixed.toSafeSql()).hasSql("SELECT id FROM table1 WHERE (a > ? OR (a = ? AND (b, c) < (?, ?))) ORDER BY a ASC, b DESC, c DESC")
+                .hasParameters(1, 1, 2, 3);
+    }
+
+    @Test(expected = BuilderException.class)
+    public void testSeekAfterWithoutOrder() {
+        SelectQuery query = new SelectQuery();
+        query.select("id").from("table1");
+        query.seekAfter(new Value(1));
+    }
+
+    @Test
+    public void testCountQuery() {
+        SelectQuery query = new SelectQuery();
+        Alias o = query.generate("o");
+        Alias c = query.generate("c");
+        query.select(new Column(o, "id")).select(new Column(c, "name"));
+        query.from("orders", o).leftJoin("customer", c).and(Condition.eq(new Column(c, "id"), new Column(o, "customer_id")));
+        query.and(Condition.eq(new Column(o, "status"), new Value(1)));
+        query.orderBy(o, "id", Order.ASC).limit(10).offset(20);
+        query.removeUnusedLeftJoins(true);
+
+        SelectQuery count = query.toCountQuery();
+        assertThat(count.toSafeSql()).hasSql("SELECT count(*) FROM orders o WHERE o.status = ?").hasParameters(1);
+        assertThat(count.getConditions().get(0)).isSameAs(query.getConditions().get(0));
+        assertThat(query.toSafeSql()).hasSql("SELECT o.id, c.name FROM orders o LEFT JOIN customer c ON c.id = o.customer_id "
+                + "WHERE o.status = ? ORDER BY o.id ASC LIMIT ? OFFSET ?");
+        assertThat(query.freeze().toCountQuery().toSafeSql()).hasSql("SELECT count(*) FROM orders o WHERE o.status = ?");
+
+        query.removeUnusedLeftJoins(false);
+        assertThat(query.toCountQuery().toSafeSql())
+                .hasSql("SELECT count(*) FROM orders o LEFT JOIN customer c ON c.id = o.customer_id WHERE o.status = ?");
+
+        query.distinct();
+        assertThat(query.toCountQuery().toSafeSql()).hasSql("SELECT count(*) FROM (SELECT DISTINCT o.id, c.name FROM orders o "
+                + "LEFT JOIN customer c ON c.id = o.customer_id WHERE o.status = ?) q").hasParameters(1);
+
+        SelectQuery grouped = new SelectQuery();
+        grouped.select("kind").select(new Call("count", new Constant("*")));
+        grouped.from("orders");
+        grouped.groupBy(new Column("kind")).orderBy("kind", Order.ASC);
+        assertThat(grouped.toCountQuery().toSafeSql())
+                .hasSql("SELECT count(*) FROM (SELECT kind, count(*) FROM orders GROUP BY kind) q");
+    }
+
+    @Test
+    public void testGeneratedNames() {
+        SelectQuery qb = new SelectQuery();
+        assertThat(qb.generate().getName()).isEqualTo("_1");
+        assertThat(qb.generate().getName()).isEqualTo("_2");
+        assertThat(qb.generate("t_2").getName()).isEqualTo("t_2");
+        assertThat(qb.generate("t").getName()).isEqualTo("t");
+        assertThat(qb.generate("t").getName()).isEqualTo("t_1");
+        assertThat(qb.generate("t").getName()).as("t_2 already taken").isEqualTo("t_3");
+        assertThat(qb.generate("t_1").getName()).isEqualTo("t_4");
+        for (int i = 0; i < 1000; i++) {
+            qb.generate("t");
+        }
+        assertThat(qb.generate("t").getName()).isEqualTo("t_1005");
+        assertThat(qb.generateIdentifier()).isEqualTo("_ident1");
+        assertThat(qb.generateIdentifier()).isEqualTo("_ident1_1");
+        assertThat(qb.generateIdentifier()).isEqualTo("_ident1_2");
+    }
+
+    @Test
+    public void testGeneratedNamesAfterCopy() {
+        SelectQuery qb = new SelectQuery();
+        qb.generate("t");
+        SelectQuery copy = new SelectQuery(qb);
+        assertThat(copy.generate("t").getName()).isEqualTo("t_1");
+        assertThat(qb.generate("t").getName()).isEqualTo("t_1");
+    }
+
     @Test
     public void testInnerJoinQuery() {
         SelectQuery qb = new SelectQuery();
@@ -139,5 +463,108 @@ public class SelectQueryTest {
         
         assertThat(qb.toSafeSql()).hasSql("SELECT 2::text").hasEmptyParameters();
     }
-    
+
+    @Test
+    public void testCopy() {
+        SelectQuery base = new SelectQuery();
+        base.select("id").from("table_name");
+        base.and(Condition.eq(new Column("name"), new Value("Lucie")));
+
+        SelectQuery count = new SelectQuery(base);
+        count.clearSelects();
+        count.select(new Call("count", new Constant("*")));
+        SelectQuery page = new SelectQuery(base).limit(10);
+        page.and(Condition.isNotNull(new Column("id")));
+        base.orderBy("id", Order.ASC);
+
+        assertThat(base.toSafeSql()).hasSql("SELECT id FROM table_name WHERE name = ? ORDER BY id ASC").hasParameters("Lucie");
+        assertThat(count.toSafeSql()).hasSql("SELECT count(*) FROM table_name WHERE name = ?").hasParameters("Lucie");
+        assertThat(page.toSafeSql()).hasSql("SELECT id FROM table_name WHERE name = ? AND id IS NOT NULL LIMIT ?").hasParameters("Lucie", 10);
+    }
+
+    @Test
+    public void testFreeze() {
+        SelectQuery qb = new SelectQuery();
+        Alias alias = qb.generate("t");
+        qb.select(alias, "id").from("table_name", alias).leftJoin("other").and(Condition.eq(new Column("id"), new Column("oid")));
+        qb.and(Condition.or(Condition.eq(new Column(alias, "name"), new Value("Lucie")), Condition.isNull(new Column(alias, "name"))));
+        SelectQuery frozen = qb.freeze();
+
+        assertThat(frozen.isFrozen()).isTrue();
+        assertThat(frozen.freeze()).isSameAs(frozen);
+        assertThat(frozen.toSafeSql())
+                .hasSql("SELECT t.id FROM table_name t LEFT JOIN other ON id = oid WHERE (t.name = ? OR t.name IS NULL)")
+                .hasParameters("Lucie");
+
+        qb.and(Condition.eq(new Column("id"), new Value(1)));
+        assertThat(frozen.toSafeSql()).as("Not affected by original").hasParameters("Lucie");
+
+        SelectQuery fork = new SelectQuery(frozen).and(Condition.eq(new Column("id"), new Value(1)));
+        assertThat(fork.isFrozen()).isFalse();
+        assertThat(fork.toSafeSql()).hasParameters("Lucie", 1);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testFrozenQueryCannotBeModified() {
+        SelectQuery frozen = new SelectQuery().select("id").freeze();
+        frozen.and(Condition.isNull(new Column("id")));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testFrozenJointureCannotBeModified() {
+        From from = From.table(null, "table_name", null);
+        from.innerJoin("other");
+        from.freeze().innerJoin("third");
+    }
+
+    @Test
+    public void testFrozenCondition() {
+        ConditionGroup group = new ConditionGroup(LogicalOperator.AND);
+        group.add(Condition.eq(new Column("a"), new Value(1)));
+        group.add(Condition.eq(new Column("b"), new Value(2)));
+        ConditionGroup frozen = group.freeze();
+        group.add(Condition.eq(new Column("c"), new Value(3)));
+
+        assertThat(frozen.toSafeSql()).hasSql("(a = ? AND b = ?)").hasParameters(1, 2);
+        Condition negated = frozen.negate();
+        assertThat(negated.toSafeSql()).hasSql("(a <> ? OR b <> ?)").hasParameters(1, 2);
+        assertThat(((ConditionGroup) negated).isFrozen()).isTrue();
+    }
+
+    @Test
+    public void testFrozenCase() {
+        Case.ConditionalCase clause = Case.create(Condition.isNull(new Column("a")), new Value(1));
+        Case.ConditionalCase frozen = clause.freeze();
+        clause.setElse(new Value(2));
+
+        assertThat(frozen.toSafeSql()).hasSql("CASE WHEN a IS NULL THEN ? END").hasParameters(1);
+        assertThat(clause.toSafeSql()).hasSql("CASE WHEN a IS NULL THEN ? ELSE ? END").hasParameters(1, 2);
+    }
+
+    @Test
+    public void testDeepFreeze() {
+        SelectQuery maxId = new SelectQuery().select(new Call("max", new Column("id")));
+        maxId.from("other");
+        SelectQuery ids = new SelectQuery().select("id");
+        ids.from("other");
+        Case.ConditionalCase clause = Case.create(Condition.isNull(new Column("a")), new Value(1));
+        Over over = new Over(new Call("sum", new QueryOperand(maxId)), new Window(Collections.<Operand>singletonList(new Column("b"))));
+        SelectQuery query = new SelectQuery();
+        query.select(new Call("coalesce", new QueryOperand(maxId), new Value(0)))
+                .select(new Cast(clause, "int4"))
+                .select(over)
+                .from("table1");
+        query.and(Condition.in(new Column("id"), new QueryOperand(ids)));
+        SelectQuery frozen = query.freeze();
+        String sql = new SelectQuery(frozen).toSafeSql().asSql();
+
+        maxId.and(Condition.isNull(new Column("a")));
+        ids.and(Condition.isNull(new Column("b")));
+        clause.setElse(new Value(2));
+        assertThat(frozen.toSafeSql().asSql()).isEqualTo(sql);
+        assertThat(new SelectQuery(frozen).toSafeSql().asSql()).as("Children frozen").isEqualTo(sql);
+        assertThat(((Over) frozen.getSelects().get(2)).isFrozen()).isTrue();
+        assertThat(over.isFrozen()).isFalse();
+    }
+
 }
@@ -0,0 +1,110 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dhatim.safesql.SafeSql;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private static SelectQuery byId(int id) {
+        SelectQuery query = new SelectQuery();
+        query.select("name").from("customer");
+        query.and(Condition.eq(new Column("id"), new Value(id)));
+        return query;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        SingleFlight<String> flight = new SingleFlight<>(sql -> {
+            executions.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return sql.getParameters()[0].toString();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> flight.execute(byId(1))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (flight.stats().getCoalesced() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("1");
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        SingleFlight.Stats stats = flight.stats();
+        assertThat(stats.getExecutions()).isEqualTo(1);
+        assertThat(stats.getCoalesced()).isEqualTo(3);
+        assertThat(stats.getSavedRate()).isEqualTo(0.75);
+        assertThat(flight.size()).isEqualTo(0);
+
+        assertThat(flight.execute(byId(1))).isEqualTo("1");
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStaleness() {
+        AtomicLong time = new AtomicLong();
+        AtomicInteger executions = new AtomicInteger();
+        SingleFlight<Integer> flight = new SingleFlight<>(sql -> executions.incrementAndGet())
+                .staleness(Duration.ofNanos(10)).ticker(time::get);
+        SafeSql sql = byId(1).toSafeSql();
+
+        assertThat(flight.execute(sql)).isEqualTo(1);
+        time.set(9);
+        assertThat(flight.execute(byId(1))).isEqualTo(1);
+        assertThat(flight.execute(byId(2))).isEqualTo(2);
+        time.set(10);
+        assertThat(flight.execute(sql)).isEqualTo(3);
+
+        SingleFlight.Stats stats = flight.stats();
+        assertThat(stats.getExecutions()).isEqualTo(3);
+        assertThat(stats.getStaleHits()).isEqualTo(1);
+        assertThat(flight.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailure() {
+        AtomicInteger executions = new AtomicInteger();
+        SingleFlight<Integer> flight = new SingleFlight<>(sql -> {
+            if (executions.incrementAndGet() == 1) {
+                throw new IllegalStateException("connection lost");
+            }
+            return executions.get();
+        }).staleness(Duration.ofMinutes(1));
+
+        String message = null;
+        try {
+            flight.execute(byId(1));
+        } catch (IllegalStateException e) {
+            message = e.getMessage();
+        }
+        assertThat(message).isEqualTo("connection lost");
+        assertThat(flight.execute(byId(1))).isEqualTo(2);
+        assertThat(flight.stats().getFailures()).isEqualTo(1);
+    }
+
+}
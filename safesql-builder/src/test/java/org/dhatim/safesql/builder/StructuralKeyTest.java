@@ -0,0 +1,81 @@
+package org.dhatim.safesql.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class StructuralKeyTest {
+
+    private static SelectQuery createQuery(Object status, int limit) {
+        SelectQuery sub = new SelectQuery();
+        Alias s = sub.generate("s");
+        sub.select(new Call("max", new Column(s, "price"))).from("item", s);
+        sub.and(Condition.eq(new Column(s, "kind"), new Value(new byte[] {1, 2})));
+
+        SelectQuery query = new SelectQuery();
+        Alias o = query.generate("o");
+        Alias l = query.generate("l");
+        query.select(new Column(o, "id")).select(new QueryOperand(sub), query.generate("price"));
+        query.from("orders", o).leftJoin("line", l).and(Condition.eq(new Column(l, "order_id"), new Column(o, "id")));
+        query.and(Condition.or(Condition.eq(new Column(o, "status"), new Value(status)), Condition.isNull(new Column(o, "status"))));
+        query.and(Condition.in(new Column(o, "type"), new Value(3), new Value(4)));
+        query.orderBy(o, "id", Order.ASC).limit(limit);
+        return query;
+    }
+
+    @Test
+    public void testKey() {
+        StructuralKey key = StructuralKey.of(createQuery(1, 10));
+        assertThat(StructuralKey.of(createQuery(1, 10))).isEqualTo(key);
+        assertThat(StructuralKey.of(createQuery(1, 10)).hashCode()).isEqualTo(key.hashCode());
+        assertThat(StructuralKey.of(createQuery(1, 10).freeze())).isEqualTo(key);
+        assertThat(StructuralKey.of(createQuery(2, 10))).isNotEqualTo(key);
+        assertThat(StructuralKey.of(createQuery(1, 20))).isNotEqualTo(key);
+
+        SelectQuery other = createQuery(1, 10);
+        other.orderBy("name", Order.DESC);
+        assertThat(StructuralKey.of(other)).isNotEqualTo(key);
+        other = createQuery(1, 10);
+        other.distinct();
+        assertThat(StructuralKey.of(other)).isNotEqualTo(key);
+        other = createQuery(1, 10);
+        other.sortConditions(true);
+        assertThat(StructuralKey.of(other)).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testShape() {
+        StructuralKey shape = StructuralKey.shapeOf(createQuery(1, 10));
+        assertThat(StructuralKey.shapeOf(createQuery(2, 20))).isEqualTo(shape);
+        assertThat(StructuralKey.shapeOf(createQuery(2, 20).freeze())).isEqualTo(shape);
+        assertThat(StructuralKey.shapeOf(createQuery("a", 10))).isNotEqualTo(shape);
+        assertThat(StructuralKey.of(createQuery(1, 10))).isNotEqualTo(shape);
+    }
+
+    @Test
+    public void testConditions() {
+        Condition a = Condition.eq(new Column("a"), new Value(1));
+        Condition b = Condition.eq(new Column("b"), new Value(1));
+        assertThat(StructuralKey.of(Condition.and(a, b))).isEqualTo(StructuralKey.of(Condition.and(a, b)));
+        assertThat(StructuralKey.of(Condition.and(a, b))).isNotEqualTo(StructuralKey.of(Condition.or(a, b)));
+        assertThat(StructuralKey.of(Condition.and(a, b))).isNotEqualTo(StructuralKey.of(Condition.and(b, a)));
+        assertThat(StructuralKey.of(a.negate())).isNotEqualTo(StructuralKey.of(a));
+        Operand custom = sb -> sb.append("now()");
+        assertThat(StructuralKey.of(custom)).isEqualTo(StructuralKey.of(custom));
+
+        Condition c = Condition.eq(new Column("c"), new Value(1));
+        ConditionGroup sorted = (ConditionGroup) Condition.and(c, a);
+        assertThat(StructuralKey.of(sorted.sortConditions(true))).isNotEqualTo(StructuralKey.of(Condition.and(c, a)));
+    }
+
+    @Test
+    public void testArrayShape() {
+        InCondition two = (InCondition) Condition.in(new Column("id"), new Value(1), new Value(2));
+        InCondition three = (InCondition) Condition.in(new Column("id"), new Value(1), new Value(2), new Value(3));
+        assertThat(StructuralKey.shapeOf(two.asArray())).isEqualTo(StructuralKey.shapeOf(three.asArray()));
+        assertThat(StructuralKey.of(two.asArray())).isNotEqualTo(StructuralKey.of(three.asArray()));
+        assertThat(StructuralKey.shapeOf(two)).isNotEqualTo(StructuralKey.shapeOf(three));
+        assertThat(StructuralKey.shapeOf(two.asArray())).isNotEqualTo(StructuralKey.shapeOf(two.asArray("int8")));
+    }
+
+}
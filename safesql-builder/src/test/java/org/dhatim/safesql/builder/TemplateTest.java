@@ -1,6 +1,7 @@
 package org.dhatim.safesql.builder;
 
-import static org.dhatim.safesql.assertion.Assertions.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.dhatim.safesql.assertion.Assertions.assertThat;
 
 import org.junit.Test;
 
@@ -40,5 +41,23 @@ public class TemplateTest {
         Operand operand = template.generate();
         assertThat(operand.toSafeSql()).hasSql("'Hello'");
     }
-    
+
+    @Test
+    public void testRepeatedParameter() {
+        Template template = Template.of("COALESCE({2}, {1}, {2})");
+        assertThat(template.getArity()).isEqualTo(2);
+        Operand operand = template.generate(new Value(1), new Value(2));
+        assertThat(operand.toSafeSql()).hasSql("COALESCE(?, ?, ?)").hasParameters(2, 1, 2);
+    }
+
+    @Test
+    public void testCached() {
+        assertThat(Template.of("LOWER({1})")).isSameAs(Template.of("LOWER({1})"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnclosedParameter() {
+        Template.of("POSITION({1} IN {2");
+    }
+
 }
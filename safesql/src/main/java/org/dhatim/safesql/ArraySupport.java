@@ -42,7 +42,12 @@ final class ArraySupport {
     }
 
     public static void appendHexBytes(StringBuilder sb, byte[] bytes) {
-        for (byte b : bytes) {
+        appendHexBytes(sb, bytes, bytes.length);
+    }
+
+    public static void appendHexBytes(StringBuilder sb, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
             sb.append(HEX_CODE[(b >> 4) & 0xF]);
             sb.append(HEX_CODE[(b & 0xF)]);
         }
@@ -76,8 +81,24 @@ final class ArraySupport {
             appendHexBytes(sb, (byte[]) obj);
             sb.append(VALUE_QUOTE);
         } else {
-            sb.append(VALUE_QUOTE).append(obj).append(VALUE_QUOTE);
+            appendQuoted(sb, obj.toString());
+        }
+    }
+
+    /**
+     * Appends a quoted element, escaping the quotes and backslashes it contains, so that it is always read as a single
+     * element, even if it is empty or looks like <code>NULL</code>.
+     */
+    private static void appendQuoted(StringBuilder sb, String value) {
+        sb.append(VALUE_QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == VALUE_QUOTE || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
         }
+        sb.append(VALUE_QUOTE);
     }
 
 }
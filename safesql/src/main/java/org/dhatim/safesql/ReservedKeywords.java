@@ -0,0 +1,39 @@
+package org.dhatim.safesql;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PostgreSQL keywords that cannot be used as a column or table name without quotes, i.e. keywords marked as
+ * <i>reserved</i> or <i>reserved (can be function or type)</i> in the PostgreSQL documentation.
+ */
+final class ReservedKeywords {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "all", "analyse", "analyze", "and", "any", "array", "as", "asc", "asymmetric", "authorization",
+            "binary", "both", "case", "cast", "check", "collate", "collation", "column", "concurrently",
+            "constraint", "create", "cross", "current_catalog", "current_date", "current_role", "current_schema",
+            "current_time", "current_timestamp", "current_user", "default", "deferrable", "desc", "distinct", "do",
+            "else", "end", "except", "false", "fetch", "for", "foreign", "freeze", "from", "full", "grant", "group",
+            "having", "ilike", "in", "initially", "inner", "intersect", "into", "is", "isnull", "join", "lateral",
+            "leading", "left", "like", "limit", "localtime", "localtimestamp", "natural", "not", "notnull", "null",
+            "offset", "on", "only", "or", "order", "outer", "overlaps", "placing", "primary", "references",
+            "returning", "right", "select", "session_user", "similar", "some", "symmetric", "table", "tablesample",
+            "then", "to", "trailing", "true", "union", "unique", "user", "using", "variadic", "verbose", "when",
+            "where", "window", "with"));
+
+    private ReservedKeywords() {
+    }
+
+    /**
+     * Checks if the given lower case word is a reserved keyword.
+     *
+     * @param word a lower case word
+     * @return <code>true</code> if the word must be quoted to be used as an identifier
+     */
+    static boolean isReserved(String word) {
+        return KEYWORDS.contains(word);
+    }
+
+}
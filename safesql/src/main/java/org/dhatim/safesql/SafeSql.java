@@ -2,6 +2,10 @@ package org.dhatim.safesql;
 
 /**
  * An object that implements this interface encapsulates SQL that is guaranteed to use placeholder parameters
+ *
+ * <p>The implementations of this library are equal when they have the same sql and equal parameters, arrays being
+ * compared by content, so they can be used as keys of a map. Their hash code is computed once: parameters must not be
+ * modified once they are part of a <code>SafeSql</code>.
  */
 public interface SafeSql {
 
@@ -25,6 +29,17 @@ public interface SafeSql {
         return SafeSqlUtils.toString(this);
     }
 
+    /**
+     * Retrieves a version of the sql query that do not contain <code>'?'</code> parameter placeholder, truncated to
+     * <code>maxLength</code> characters. Parameters are truncated before being written, so the cost of this method
+     * does not depend on the size of the parameters. This is intended for logging.
+     * @param maxLength maximum number of characters, not counting the trailing <code>...</code> truncation mark
+     * @return the possibly truncated sql query with parameter inside
+     */
+    default String asString(int maxLength) {
+        return SafeSqlUtils.toString(this, maxLength, maxLength);
+    }
+
     static SafeSql constant(String s) {
         return SafeSqlUtils.fromConstant(s);
     }
@@ -222,7 +222,7 @@ public class SafeSqlBuilder implements SafeSqlizable {
      * @return a reference to this object.
      */
     public SafeSqlBuilder literal(String s) {
-        sql.append(SafeSqlUtils.escapeString(s));
+        SafeSqlUtils.appendEscapedString(sql, s);
         return this;
     }
 
@@ -254,31 +254,30 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joined(String delimiter, Iterable<String> iterable) {
-        SafeSqlJoiner joiner = new SafeSqlJoiner(SafeSqlUtils.fromConstant(delimiter));
-        iterable.forEach(joiner::add);
-        joiner.appendTo(this);
-        return this;
+        return joined(delimiter, "", "", iterable);
     }
 
     public SafeSqlBuilder joined(String delimiter, String prefix, String suffix, Iterable<String> iterable) {
-        SafeSqlJoiner joiner = new SafeSqlJoiner(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix));
-        iterable.forEach(joiner::add);
-        joiner.appendTo(this);
+        sql.append(prefix);
+        boolean first = true;
+        for (String s : iterable) {
+            if (first) {
+                first = false;
+            } else {
+                sql.append(delimiter);
+            }
+            sql.append(s);
+        }
+        sql.append(suffix);
         return this;
     }
 
     public SafeSqlBuilder joined(String delimiter, Stream<String> stream) {
-        SafeSqlJoiner joiner = stream.collect(() -> new SafeSqlJoiner(SafeSqlUtils.fromConstant(delimiter)),
-                SafeSqlJoiner::add, SafeSqlJoiner::merge);
-        joiner.appendTo(this);
-        return this;
+        return joined(delimiter, "", "", stream);
     }
 
     public SafeSqlBuilder joined(String delimiter, String prefix, String suffix, Stream<String> stream) {
-        SafeSqlJoiner joiner = stream.collect(() -> new SafeSqlJoiner(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix)),
-                SafeSqlJoiner::add, SafeSqlJoiner::merge);
-        joiner.appendTo(this);
-        return this;
+        return joined(delimiter, prefix, suffix, iterable(stream));
     }
 
     public SafeSqlBuilder joinedSafeSqls(SafeSql delimiter, Iterable<SafeSql> iterable) {
@@ -286,16 +285,22 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joinedSafeSqls(SafeSql delimiter, SafeSql prefix, SafeSql suffix, Iterable<SafeSql> iterable) {
-        SafeSqlJoiner joiner = new SafeSqlJoiner(delimiter, prefix, suffix);
-        iterable.forEach(joiner::add);
-        joiner.appendTo(this);
+        append(prefix);
+        boolean first = true;
+        for (SafeSql s : iterable) {
+            if (first) {
+                first = false;
+            } else {
+                append(delimiter);
+            }
+            append(s);
+        }
+        append(suffix);
         return this;
     }
 
     public SafeSqlBuilder joinedSafeSqls(SafeSql delimiter, SafeSql prefix, SafeSql suffix, Stream<SafeSql> stream) {
-        SafeSqlJoiner joiner = stream.collect(() -> new SafeSqlJoiner(delimiter, prefix, suffix), SafeSqlJoiner::add, SafeSqlJoiner::merge);
-        joiner.appendTo(this);
-        return this;
+        return joinedSafeSqls(delimiter, prefix, suffix, iterable(stream));
     }
 
     public SafeSqlBuilder joinedSafeSqls(SafeSql delimiter, Stream<SafeSql> stream) {
@@ -303,7 +308,7 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joinedSafeSqls(String delimiter, Iterable<SafeSql> iterable) {
-        return joinedSafeSqls(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.EMPTY, SafeSqlUtils.EMPTY, iterable);
+        return joinedSafeSqls(delimiter, "", "", iterable);
     }
 
     public SafeSqlBuilder joinedSafeSqls(String delimiter, Stream<SafeSql> stream) {
@@ -311,11 +316,22 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joinedSafeSqls(String delimiter, String prefix, String suffix, Iterable<SafeSql> iterable) {
-        return joinedSafeSqls(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix), iterable);
+        sql.append(prefix);
+        boolean first = true;
+        for (SafeSql s : iterable) {
+            if (first) {
+                first = false;
+            } else {
+                sql.append(delimiter);
+            }
+            append(s);
+        }
+        sql.append(suffix);
+        return this;
     }
 
     public SafeSqlBuilder joinedSafeSqls(String delimiter, String prefix, String suffix, Stream<SafeSql> stream) {
-        return joinedSafeSqls(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix), stream);
+        return joinedSafeSqls(delimiter, prefix, suffix, iterable(stream));
     }
 
     public SafeSqlBuilder joinedSqlizables(SafeSql delimiter, Iterable<? extends SafeSqlizable> iterable) {
@@ -323,16 +339,22 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joinedSqlizables(SafeSql delimiter, SafeSql prefix, SafeSql suffix, Iterable<? extends SafeSqlizable> iterable) {
-        SafeSqlJoiner joiner = new SafeSqlJoiner(delimiter, prefix, suffix);
-        iterable.forEach(joiner::add);
-        joiner.appendTo(this);
+        append(prefix);
+        boolean first = true;
+        for (SafeSqlizable s : iterable) {
+            if (first) {
+                first = false;
+            } else {
+                append(delimiter);
+            }
+            s.appendTo(this);
+        }
+        append(suffix);
         return this;
     }
 
     public SafeSqlBuilder joinedSqlizables(SafeSql delimiter, SafeSql prefix, SafeSql suffix, Stream<? extends SafeSqlizable> stream) {
-        SafeSqlJoiner joiner = stream.collect(() -> new SafeSqlJoiner(delimiter, prefix, suffix), SafeSqlJoiner::add, SafeSqlJoiner::merge);
-        joiner.appendTo(this);
-        return this;
+        return joinedSqlizables(delimiter, prefix, suffix, iterable(stream));
     }
 
     public SafeSqlBuilder joinedSqlizables(SafeSql delimiter, Stream<? extends SafeSqlizable> stream) {
@@ -340,19 +362,30 @@ public class SafeSqlBuilder implements SafeSqlizable {
     }
 
     public SafeSqlBuilder joinedSqlizables(String delimiter, Iterable<? extends SafeSqlizable> iterable) {
-        return joinedSqlizables(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.EMPTY, SafeSqlUtils.EMPTY, iterable);
+        return joinedSqlizables(delimiter, "", "", iterable);
     }
 
     public SafeSqlBuilder joinedSqlizables(String delimiter, Stream<? extends SafeSqlizable> stream) {
-        return joinedSqlizables(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.EMPTY, SafeSqlUtils.EMPTY, stream);
+        return joinedSqlizables(delimiter, "", "", stream);
     }
 
     public SafeSqlBuilder joinedSqlizables(String delimiter, String prefix, String suffix, Iterable<? extends SafeSqlizable> iterable) {
-        return joinedSqlizables(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix), iterable);
+        sql.append(prefix);
+        boolean first = true;
+        for (SafeSqlizable s : iterable) {
+            if (first) {
+                first = false;
+            } else {
+                sql.append(delimiter);
+            }
+            s.appendTo(this);
+        }
+        sql.append(suffix);
+        return this;
     }
 
     public SafeSqlBuilder joinedSqlizables(String delimiter, String prefix, String suffix, Stream<? extends SafeSqlizable> stream) {
-        return joinedSqlizables(SafeSqlUtils.fromConstant(delimiter), SafeSqlUtils.fromConstant(prefix), SafeSqlUtils.fromConstant(suffix), stream);
+        return joinedSqlizables(delimiter, prefix, suffix, iterable(stream));
     }
 
     /**
@@ -574,6 +607,10 @@ public class SafeSqlBuilder implements SafeSqlizable {
         return parameters.toArray();
     }
 
+    private static <T> Iterable<T> iterable(Stream<T> stream) {
+        return stream::iterator;
+    }
+
     private void appendObject(Object o) {
         sql.append('?');
         parameters.add(o);
@@ -0,0 +1,248 @@
+package org.dhatim.safesql;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.MissingFormatArgumentException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A sql string with named <code>{:name}</code> placeholders, parsed once and formatted many times. The values are
+ * taken from a {@link Map}, or from the accessors of a bean: <code>getName()</code>, <code>isName()</code>,
+ * <code>name()</code> or a public <code>name</code> field. The escape sequence is <code>{{.*}}</code>, like
+ * {@link SafeSqlUtils#format(String, Object...)}.
+ *
+ * <p>Each name is resolved once per call, even if it appears several times. Every occurrence is still a distinct
+ * <code>?</code> parameter, as JDBC placeholders cannot be referenced twice.
+ */
+public final class SafeSqlFormat {
+
+    private static final Pattern PATTERN = Pattern.compile("\\{(?::(\\w+)|(\\{.*?\\}))\\}");
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final String pattern;
+
+    /**
+     * Constant sql before each placeholder, then after the last one.
+     */
+    private final String[] parts;
+
+    /**
+     * Distinct names of the placeholders, in their order of appearance.
+     */
+    private final String[] names;
+
+    /**
+     * Index in {@link #names} of each placeholder.
+     */
+    private final int[] slots;
+
+    /**
+     * Maximum number of bean classes whose accessors are cached by a format. Formats are cached themselves, so the
+     * classes, and their class loaders, are only kept for a bounded number of classes.
+     */
+    private static final int ACCESSORS_CACHE_SIZE = 16;
+
+    private final ConcurrentMap<Class<?>, Function<Object, Object>[]> accessors = new ConcurrentHashMap<>();
+
+    private SafeSqlFormat(String pattern, String[] parts, String[] names, int[] slots) {
+        this.pattern = pattern;
+        this.parts = parts;
+        this.names = names;
+        this.slots = slots;
+    }
+
+    /**
+     * Parses a sql string with named placeholders.
+     *
+     * @param sql sql string with <code>{:name}</code> placeholders
+     * @return the parsed format
+     */
+    public static SafeSqlFormat compile(String sql) {
+        Objects.requireNonNull(sql, "sql");
+        Matcher matcher = PATTERN.matcher(sql);
+        List<String> parts = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        Map<String, Integer> names = new HashMap<>();
+        List<String> orderedNames = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        int lastIndex = 0;
+        while (matcher.find()) {
+            part.append(sql, lastIndex, matcher.start());
+            lastIndex = matcher.end();
+            String name = matcher.group(1);
+            if (name == null) {
+                // escaped sequence
+                part.append(matcher.group(2));
+            } else {
+                Integer slot = names.get(name);
+                if (slot == null) {
+                    slot = orderedNames.size();
+                    names.put(name, slot);
+                    orderedNames.add(name);
+                }
+                parts.add(part.toString());
+                part.setLength(0);
+                slots.add(slot);
+            }
+        }
+        part.append(sql, lastIndex, sql.length());
+        parts.add(part.toString());
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new SafeSqlFormat(sql, parts.toArray(new String[0]), orderedNames.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * Returns the distinct names of the placeholders, in their order of appearance.
+     *
+     * @return the names of the placeholders
+     */
+    public List<String> getNames() {
+        List<String> list = new ArrayList<>(names.length);
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    public SafeSql format(Map<String, ?> values) {
+        SafeSqlBuilder sb = new SafeSqlBuilder();
+        formatTo(sb, values);
+        return sb.toSafeSql();
+    }
+
+    public SafeSql format(Object bean) {
+        SafeSqlBuilder sb = new SafeSqlBuilder();
+        formatTo(sb, bean);
+        return sb.toSafeSql();
+    }
+
+    public void formatTo(SafeSqlBuilder builder, Map<String, ?> values) {
+        Object[] resolved = names.length == 0 ? NO_ARGUMENTS : new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Object value = values.get(names[i]);
+            if (value == null && !values.containsKey(names[i])) {
+                throw new MissingFormatArgumentException("Argument " + names[i]);
+            }
+            resolved[i] = value;
+        }
+        write(builder, resolved);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void formatTo(SafeSqlBuilder builder, Object bean) {
+        Objects.requireNonNull(bean, "bean");
+        if (bean instanceof Map) {
+            formatTo(builder, (Map<String, ?>) bean);
+            return;
+        }
+        Function<Object, Object>[] beanAccessors = accessors.get(bean.getClass());
+        if (beanAccessors == null) {
+            beanAccessors = accessorsOf(bean.getClass());
+            if (accessors.size() < ACCESSORS_CACHE_SIZE) {
+                accessors.putIfAbsent(bean.getClass(), beanAccessors);
+            }
+        }
+        Object[] resolved = names.length == 0 ? NO_ARGUMENTS : new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            resolved[i] = beanAccessors[i].apply(bean);
+        }
+        write(builder, resolved);
+    }
+
+    private void write(SafeSqlBuilder builder, Object[] resolved) {
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(parts[i]).param(resolved[slots[i]]);
+        }
+        String lastPart = parts[slots.length];
+        if (!lastPart.isEmpty()) {
+            builder.append(lastPart);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Function<Object, Object>[] accessorsOf(Class<?> type) {
+        Function<Object, Object>[] result = new Function[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = accessorOf(type, names[i]);
+        }
+        return result;
+    }
+
+    private static Function<Object, Object> accessorOf(Class<?> type, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String methodName : new String[] {"get" + capitalized, "is" + capitalized, name}) {
+            try {
+                Method method = type.getMethod(methodName);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    makeAccessible(method);
+                    return bean -> invoke(method, bean);
+                }
+            } catch (NoSuchMethodException e) {
+                // try the next accessor
+            }
+        }
+        try {
+            Field field = type.getField(name);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                makeAccessible(field);
+                return bean -> get(field, bean);
+            }
+        } catch (NoSuchFieldException e) {
+            // no accessor
+        }
+        throw new MissingFormatArgumentException("Argument " + name + " of " + type.getName());
+    }
+
+    private static void makeAccessible(AccessibleObject member) {
+        try {
+            // public members of non public classes are not accessible otherwise
+            member.setAccessible(true);
+        } catch (RuntimeException e) {
+            // left as is, access is checked when invoked
+        }
+    }
+
+    private static Object invoke(Method method, Object bean) {
+        try {
+            return method.invoke(bean);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + method, e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Cannot read " + method, cause);
+        }
+    }
+
+    private static Object get(Field field, Object bean) {
+        try {
+            return field.get(bean);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + field, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.dhatim.safesql;
 
+import java.util.Arrays;
+
 class SafeSqlImpl implements SafeSql {
 
     private final String sql;
@@ -7,6 +9,11 @@ class SafeSqlImpl implements SafeSql {
     
     private String string;
 
+    /**
+     * Cached hash code, 0 if not computed yet.
+     */
+    private int hash;
+
     SafeSqlImpl(String sql, Object[] parameters) {
         this.sql = sql;
         this.parameters = parameters;
@@ -30,4 +37,37 @@ class SafeSqlImpl implements SafeSql {
         return string;
     }
 
+    @Override
+    public String asString(int maxLength) {
+        if (string != null) {
+            return SafeSqlUtils.truncate(string, maxLength);
+        }
+        return SafeSql.super.asString(maxLength);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = SafeSqlUtils.hashCode(sql, parameters);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof SafeSqlImpl) {
+            SafeSqlImpl other = (SafeSqlImpl) obj;
+            return hashCode() == other.hashCode() && sql.equals(other.sql) && Arrays.deepEquals(parameters, other.parameters);
+        }
+        if (obj instanceof StringSafeSqlImpl) {
+            return parameters.length == 0 && sql.equals(((StringSafeSqlImpl) obj).asSql());
+        }
+        return false;
+    }
+
 }
@@ -42,7 +42,7 @@ public class SafeSqlJoiner implements SafeSqlizable {
     }
 
     public SafeSqlJoiner add(SafeSqlizable newElement) {
-        prepareBuilder().append(newElement.toSafeSql());
+        newElement.appendTo(prepareBuilder());
         return this;
     }
 
@@ -16,7 +16,7 @@ public abstract class SafeSqlRewriter {
         int index = 0;
         StringTokenizer tokenizer = new StringTokenizer(value.asSql(), "\"'?", true);
         int state = 0;
-        while (tokenizer.hasMoreTokens()) {
+        while (tokenizer.hasMoreTokens() && !isComplete(sb)) {
             String token = tokenizer.nextToken();
             switch (token) {
             case "\"":
@@ -62,6 +62,17 @@ public abstract class SafeSqlRewriter {
 
     protected abstract void processParameter(SafeSqlBuilder sb, Object oldParameter);
 
+    /**
+     * Returns <code>true</code> if nothing more should be written to the given builder. Rewriting stops as soon as this
+     * method returns <code>true</code>, the remaining sql and parameters are ignored.
+     *
+     * @param sb builder being written
+     * @return <code>true</code> to stop rewriting
+     */
+    protected boolean isComplete(SafeSqlBuilder sb) {
+        return false;
+    }
+
     public static SafeSqlRewriter create(BiConsumer<SafeSqlBuilder, Object> parameterRewriter) {
         Objects.requireNonNull(parameterRewriter);
         return new SafeSqlRewriter() {
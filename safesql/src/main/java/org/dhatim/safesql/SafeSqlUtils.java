@@ -11,9 +11,12 @@ import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.MissingFormatArgumentException;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,17 +29,26 @@ public final class SafeSqlUtils {
 
     private static final char STRING_QUOTE_CHAR = '\'';
     private static final String STRING_QUOTE = "'";
-    private static final String ESCAPED_STRING_QUOTE = "''";
 
     private static final char IDENTIFIER_QUOTE_CHAR = '"';
-    private static final String IDENTIFIER_QUOTE = "\"";
-    private static final String ESCAPED_IDENTIFIER_QUOTE = "\"\"";
+
+    /**
+     * Maximum number of identifiers kept in {@link #IDENTIFIER_CACHE}. Applications use a limited set of identifiers,
+     * once the cache is full new identifiers are still escaped but not cached.
+     */
+    private static final int IDENTIFIER_CACHE_SIZE = 4096;
+    private static final ConcurrentMap<String, String> IDENTIFIER_CACHE = new ConcurrentHashMap<>();
+
+    private static final int FORMAT_CACHE_SIZE = 1024;
+    private static final ConcurrentMap<String, SafeSqlFormat> FORMAT_CACHE = new ConcurrentHashMap<>();
+
+    private static final String ELIDED = "...";
 
     public static final SafeSql EMPTY = new StringSafeSqlImpl("");
 
     private static final Pattern PATTERN = Pattern.compile("(?:\\{((?:\\d+|\\{(?:.*)\\})?)\\})");
 
-    private static final Pattern DEFAULT_LIKE_VALUE_ESCAPE = Pattern.compile("([\\_%])");
+    private static final char DEFAULT_LIKE_ESCAPE_CHAR = '\\';
 
     private SafeSqlUtils() {
     }
@@ -53,11 +65,22 @@ public final class SafeSqlUtils {
         return new SafeSqlImpl("?", new Object[]{o});
     }
 
+    /**
+     * Creates a {@link SafeSql} from sql already rendered with its parameters, like the result of
+     * {@link SafeSql#asSql()} and {@link SafeSql#getParameters()}. The sql is used as is: it must come from a trusted
+     * source, with a <code>?</code> placeholder for each parameter.
+     *
+     * @param sql sql with placeholders
+     * @param parameters parameters of the placeholders, copied
+     * @return a SafeSql with the given sql and parameters
+     */
+    public static SafeSql fromSqlAndParameters(String sql, Object... parameters) {
+        Objects.requireNonNull(sql, "sql");
+        return new SafeSqlImpl(sql, parameters.clone());
+    }
+
     public static SafeSql fromIdentifier(String identifier) {
-        String sql = mustEscapeIdentifier(identifier)
-                ? escapeIdentifier(identifier)
-                : identifier;
-        return new StringSafeSqlImpl(sql);
+        return new StringSafeSqlImpl(mayEscapeIdentifier(identifier));
     }
 
     /**
@@ -126,6 +149,43 @@ public final class SafeSqlUtils {
         }
     }
 
+    /**
+     * Returns a formatted sql string using named arguments.
+     *
+     * @param sql string query with some <code>{:name}</code> argument places. The escape sequence is
+     * <code>{{.*}}</code>.
+     * @param arguments arguments by name
+     * @return <code>SafeSql</code> with parameters
+     * @see SafeSqlFormat
+     */
+    public static SafeSql formatNamed(String sql, Map<String, ?> arguments) {
+        return compileFormat(sql).format(arguments);
+    }
+
+    /**
+     * Returns a formatted sql string using the properties of a bean as named arguments.
+     *
+     * @param sql string query with some <code>{:name}</code> argument places. The escape sequence is
+     * <code>{{.*}}</code>.
+     * @param bean bean whose accessors give the arguments, or a <code>Map</code> of the arguments
+     * @return <code>SafeSql</code> with parameters
+     * @see SafeSqlFormat
+     */
+    public static SafeSql formatNamed(String sql, Object bean) {
+        return compileFormat(sql).format(bean);
+    }
+
+    private static SafeSqlFormat compileFormat(String sql) {
+        SafeSqlFormat format = FORMAT_CACHE.get(sql);
+        if (format == null) {
+            format = SafeSqlFormat.compile(sql);
+            if (FORMAT_CACHE.size() < FORMAT_CACHE_SIZE) {
+                FORMAT_CACHE.putIfAbsent(sql, format);
+            }
+        }
+        return format;
+    }
+
     public static SafeSql concat(SafeSql s1, SafeSql s2) {
         String sql = s1.asSql() + s2.asSql();
         Object[] p1 = s1.getParameters();
@@ -140,11 +200,25 @@ public final class SafeSqlUtils {
     }
 
     public static String escapeLikeValue(String s, char escapeChar) {
-        return Pattern.compile("([" + escapeChar + "_%])").matcher(s).replaceAll(escapeChar + "$1");
+        int length = s.length();
+        StringBuilder sb = null;
+        for (int i = 0; i < length; i++) {
+            char ch = s.charAt(i);
+            if (ch == escapeChar || ch == '_' || ch == '%') {
+                if (sb == null) {
+                    sb = new StringBuilder(length + 8).append(s, 0, i);
+                }
+                sb.append(escapeChar);
+            }
+            if (sb != null) {
+                sb.append(ch);
+            }
+        }
+        return sb == null ? s : sb.toString();
     }
 
     public static String escapeLikeValue(String s) {
-        return DEFAULT_LIKE_VALUE_ESCAPE.matcher(s).replaceAll("\\\\$1");
+        return escapeLikeValue(s, DEFAULT_LIKE_ESCAPE_CHAR);
     }
 
     @SafeVarargs
@@ -157,17 +231,60 @@ public final class SafeSqlUtils {
     }
 
     static String escapeIdentifier(String identifier) {
-        return IDENTIFIER_QUOTE_CHAR + identifier.replace(IDENTIFIER_QUOTE, ESCAPED_IDENTIFIER_QUOTE) + IDENTIFIER_QUOTE_CHAR;
+        int length = identifier.length();
+        StringBuilder sb = new StringBuilder(length + 2).append(IDENTIFIER_QUOTE_CHAR);
+        for (int i = 0; i < length; i++) {
+            char ch = identifier.charAt(i);
+            if (ch == IDENTIFIER_QUOTE_CHAR) {
+                sb.append(IDENTIFIER_QUOTE_CHAR);
+            }
+            sb.append(ch);
+        }
+        return sb.append(IDENTIFIER_QUOTE_CHAR).toString();
     }
 
     static String escapeString(String string) {
-        return STRING_QUOTE_CHAR + string.replace(STRING_QUOTE, ESCAPED_STRING_QUOTE) + STRING_QUOTE_CHAR;
+        StringBuilder sb = new StringBuilder(string.length() + 2);
+        appendEscapedString(sb, string);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the given string as a quoted string literal, doubling the quotes it contains.
+     *
+     * @param sb where the literal is written
+     * @param string the string to write
+     */
+    static void appendEscapedString(StringBuilder sb, String string) {
+        int length = string.length();
+        sb.append(STRING_QUOTE_CHAR);
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) == STRING_QUOTE_CHAR) {
+                sb.append(string, start, i + 1).append(STRING_QUOTE_CHAR);
+                start = i + 1;
+            }
+        }
+        sb.append(string, start, length).append(STRING_QUOTE_CHAR);
     }
 
     static boolean mustEscapeIdentifier(String identifier) {
         Objects.requireNonNull(identifier, "null identifier");
+        boolean onlyLetters = true;
         for (int i=0; i<identifier.length(); i++) {
             char ch = identifier.charAt(i);
+            if (ch < 128) {
+                // ASCII fast path
+                if ((ch >= 'a' && ch <= 'z') || ch == '_') {
+                    continue;
+                }
+                onlyLetters = false;
+                if (i == 0 || !((ch >= '0' && ch <= '9') || ch == '$')) {
+                    return true;
+                }
+                continue;
+            }
+            onlyLetters = false;
             if (i == 0) {
                 if (!(Character.isLetter(ch) || ch == '_')) {
                     return true;
@@ -181,18 +298,143 @@ public final class SafeSqlUtils {
                 return true;
             }
         }
-        return false;
+        // Keywords are only made of ASCII lower case letters and underscores
+        return onlyLetters && ReservedKeywords.isReserved(identifier);
     }
 
     static String mayEscapeIdentifier(String identifier) {
-        return mustEscapeIdentifier(identifier) ? escapeIdentifier(identifier) : identifier;
+        Objects.requireNonNull(identifier, "null identifier");
+        String rendered = IDENTIFIER_CACHE.get(identifier);
+        if (rendered == null) {
+            rendered = mustEscapeIdentifier(identifier) ? escapeIdentifier(identifier) : identifier;
+            if (IDENTIFIER_CACHE.size() < IDENTIFIER_CACHE_SIZE) {
+                IDENTIFIER_CACHE.putIfAbsent(identifier, rendered);
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * Hash code of a {@link SafeSql}, consistent between the implementations of this package.
+     */
+    static int hashCode(String sql, Object[] parameters) {
+        return 31 * sql.hashCode() + Arrays.deepHashCode(parameters);
     }
 
     static String toString(SafeSql sql) {
         return literalize(sql).asSql();
     }
 
+    /**
+     * Returns a literalized version of the given {@code SafeSql} whose cost is bounded, suitable for logging. Writing
+     * stops once <code>maxLength</code> characters have been produced and parameters longer than
+     * <code>maxParameterLength</code> are truncated before being encoded: the escaped content of a string literal,
+     * including the values rendered by their <code>toString()</code> method, is at most
+     * <code>maxParameterLength</code> characters. A {@link SafeSqlLiteralizable} value other than an array is
+     * literalized in full before being truncated. Truncated parts are marked with <code>...</code>, so the result is
+     * not meant to be executed.
+     *
+     * @param sql {@code SafeSql} to literalize
+     * @param maxLength maximum number of characters of the result, not counting the trailing truncation mark
+     * @param maxParameterLength maximum number of characters of a single parameter value
+     * @return a possibly truncated literalized version of the given SafeSql
+     */
+    public static String toString(SafeSql sql, int maxLength, int maxParameterLength) {
+        if (maxLength < 0 || maxParameterLength < 0) {
+            throw new IllegalArgumentException("Negative length");
+        }
+        SafeSqlBuilder sb = new SafeSqlBuilder();
+        new SafeSqlRewriter() {
+            @Override
+            protected void processParameter(SafeSqlBuilder builder, Object oldParameter) {
+                int remaining = maxLength - builder.sql.length();
+                appendBoundedParam(builder, oldParameter, Math.min(maxParameterLength, remaining));
+            }
+
+            @Override
+            protected boolean isComplete(SafeSqlBuilder builder) {
+                return builder.sql.length() >= maxLength;
+            }
+        }.writeTo(sql, sb);
+        return truncate(sb.sql, maxLength);
+    }
+
+    static String truncate(CharSequence s, int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Negative length");
+        }
+        if (s.length() <= maxLength) {
+            return s.toString();
+        }
+        return new StringBuilder(maxLength + ELIDED.length()).append(s, 0, maxLength).append(ELIDED).toString();
+    }
+
+    private static void appendBoundedParam(SafeSqlBuilder sb, Object obj, int maxLength) {
+        if (obj instanceof CharSequence) {
+            appendBoundedString(sb, (CharSequence) obj, maxLength);
+        } else if (obj instanceof byte[] && ((byte[]) obj).length > maxLength / 2) {
+            sb.append("BYTEA '\\x");
+            ArraySupport.appendHexBytes(sb.sql, (byte[]) obj, maxLength / 2);
+            sb.append('\'').append(ELIDED);
+        } else if (obj instanceof PGArrayParameter) {
+            PGArrayParameter<?> array = (PGArrayParameter<?>) obj;
+            String value = array.getValue();
+            int end = escapedPrefixLength(value, maxLength);
+            if (end < value.length()) {
+                sb.literal(value.substring(0, end)).append(ELIDED).append("::").append(array.getType());
+            } else {
+                array.appendLiteralized(sb);
+            }
+        } else if (obj instanceof SafeSqlLiteralizable) {
+            // the literal of an unknown type can only be cut once written
+            int start = sb.sql.length();
+            ((SafeSqlLiteralizable) obj).appendLiteralized(sb);
+            if (sb.sql.length() - start > maxLength) {
+                sb.sql.setLength(start + maxLength);
+                sb.append(ELIDED);
+            }
+        } else {
+            appendEscapedParam(sb, obj, maxLength);
+        }
+    }
+
+    /**
+     * Appends a string literal whose escaped content is at most <code>maxLength</code> characters, followed by the
+     * truncation mark if the string was cut.
+     */
+    private static void appendBoundedString(SafeSqlBuilder sb, CharSequence s, int maxLength) {
+        int end = escapedPrefixLength(s, maxLength);
+        if (end < s.length()) {
+            sb.literal(s.subSequence(0, end).toString()).append(ELIDED);
+        } else {
+            sb.literal(s.toString());
+        }
+    }
+
+    /**
+     * Returns the length of the longest prefix of a string whose escaped form is at most <code>maxLength</code>
+     * characters, quotes being doubled.
+     */
+    private static int escapedPrefixLength(CharSequence s, int maxLength) {
+        int length = s.length();
+        if (length <= maxLength / 2) {
+            return length;
+        }
+        int escaped = 0;
+        for (int i = 0; i < length; i++) {
+            escaped += s.charAt(i) == STRING_QUOTE_CHAR ? 2 : 1;
+            if (escaped > maxLength) {
+                return i;
+            }
+        }
+        return length;
+    }
+
     private static void appendEscapedParam(SafeSqlBuilder sb, Object obj) {
+        appendEscapedParam(sb, obj, Integer.MAX_VALUE);
+    }
+
+    private static void appendEscapedParam(SafeSqlBuilder sb, Object obj, int maxLength) {
         if (obj == null) {
             sb.append("NULL");
         } else if (obj instanceof Boolean) {
@@ -237,7 +479,7 @@ public final class SafeSqlUtils {
         } else if (obj instanceof byte[]) {
             sb.append("BYTEA ").literal((byte[]) obj);
         } else {
-            sb.literal(obj.toString());
+            appendBoundedString(sb, obj.toString(), maxLength);
         }
     }
 
@@ -5,6 +5,11 @@ class StringSafeSqlImpl implements SafeSql {
     private static final Object[] EMPTY = {};
     
     private final String sql;
+
+    /**
+     * Cached hash code, 0 if not computed yet.
+     */
+    private int hash;
     
     public StringSafeSqlImpl(String sql) {
         this.sql = sql;
@@ -20,9 +25,36 @@ class StringSafeSqlImpl implements SafeSql {
         return sql;
     }
 
+    @Override
+    public String asString(int maxLength) {
+        return SafeSqlUtils.truncate(sql, maxLength);
+    }
+
     @Override
     public Object[] getParameters() {
         return EMPTY;
     }
 
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = SafeSqlUtils.hashCode(sql, EMPTY);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof StringSafeSqlImpl) {
+            return sql.equals(((StringSafeSqlImpl) obj).sql);
+        }
+        // a SafeSqlImpl without parameters can be equal
+        return obj instanceof SafeSqlImpl && obj.equals(this);
+    }
+
 }
@@ -0,0 +1,57 @@
+package org.dhatim.safesql;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Appends 2000 distinct identifiers, one in five needing quotes, to a builder. The score is the time per identifier.
+ *
+ * <p>Run it with <code>mvn test-compile</code> and the {@link #main(String[])} method, with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdentifierBenchmark {
+
+    private static final int COUNT = 2000;
+
+    private final String[] identifiers = new String[COUNT];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < COUNT; i++) {
+            identifiers[i] = i % 5 == 0 ? "Column_" + i : "column_" + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public SafeSql identifiers() {
+        SafeSqlBuilder sb = new SafeSqlBuilder();
+        for (String identifier : identifiers) {
+            sb.identifier(identifier);
+        }
+        return sb.toSafeSql();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdentifierBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
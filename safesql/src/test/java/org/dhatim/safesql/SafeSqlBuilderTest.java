@@ -65,6 +65,13 @@ public class SafeSqlBuilderTest {
                 .hasEmptyParameters();
     }
 
+    @Test
+    public void testLiteral() {
+        assertThat(new SafeSqlBuilder().append("SELECT ").literal("Cheveux d'ange").toSafeSql())
+                .hasSql("SELECT 'Cheveux d''ange'")
+                .hasEmptyParameters();
+    }
+
     @Test
     public void testAppendEscaped() {
         assertThat(new SafeSqlBuilder().append("SELECT * FORM table WHERE column = ").param("Hello the world").toSafeSql())
@@ -157,6 +164,24 @@ public class SafeSqlBuilderTest {
                 .hasEmptyParameters();
     }
 
+    @Test
+    public void testJoinedWithDelimiters() {
+        List<SafeSqlizable> list = Arrays.asList(new MySafeSqlizable(), new MySafeSqlizable());
+
+        assertThat(new SafeSqlBuilder().joinedSqlizables(SafeSql.parameter(0), SafeSql.parameter(1), SafeSql.parameter(2), list).toSafeSql())
+                .hasSql("?" + MySafeSqlizable.MUST_BE + "?" + MySafeSqlizable.MUST_BE + "?")
+                .hasParameters(1, 5, 0, 5, 2);
+        assertThat(new SafeSqlBuilder().joinedSqlizables(", ", "(", ")", list.stream()).toSafeSql())
+                .hasSql("(" + MySafeSqlizable.MUST_BE + ", " + MySafeSqlizable.MUST_BE + ")")
+                .hasParameters(5, 5);
+        assertThat(new SafeSqlBuilder().joined(",", "[", "]", Arrays.asList("1", "2").stream()).toSafeSql())
+                .hasSql("[1,2]")
+                .hasEmptyParameters();
+        assertThat(new SafeSqlBuilder().joinedSqlizables(", ", "(", ")", Arrays.<SafeSqlizable>asList()).toSafeSql())
+                .hasSql("()")
+                .hasEmptyParameters();
+    }
+
     @Test
     public void testLambdaJoined() {
         List<SafeSqlizable> list = Arrays.asList(new MySafeSqlizable(), new MySafeSqlizable());
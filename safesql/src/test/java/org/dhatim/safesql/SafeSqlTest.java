@@ -1,5 +1,7 @@
 package org.dhatim.safesql;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import org.dhatim.safesql.assertion.Assertions;
 import org.junit.Test;
 
@@ -20,6 +22,34 @@ public class SafeSqlTest {
                 .hasLiteralizedSql("SELECT abc, 42 FROM mytable");
     }
 
+    @Test
+    public void testAsStringBounded() {
+        SafeSql sql = new SafeSqlBuilder().append("SELECT abc, ").param("Hello the world").append(" FROM mytable").toSafeSql();
+
+        assertThat(sql.asString(20)).isEqualTo("SELECT abc, 'Hello t...");
+        assertThat(sql.asString()).isEqualTo("SELECT abc, 'Hello the world' FROM mytable");
+        assertThat(sql.asString(20)).as("From cached string").isEqualTo("SELECT abc, 'Hello t...");
+        assertThat(SafeSql.constant("SELECT 1").asString(6)).isEqualTo("SELECT...");
+    }
+
+    @Test
+    public void testEquals() {
+        SafeSql sql = new SafeSqlBuilder().append("SELECT ").param(42).append(", ").param(new byte[] {1, 2}).toSafeSql();
+        SafeSql same = SafeSqlUtils.format("SELECT {}, {}", 42, new byte[] {1, 2});
+        assertThat(sql).isEqualTo(same);
+        assertThat(sql.hashCode()).isEqualTo(same.hashCode());
+        assertThat(sql).isNotEqualTo(SafeSqlUtils.format("SELECT {}, {}", 42, new byte[] {1, 3}));
+        assertThat(sql).isNotEqualTo(SafeSqlUtils.format("SELECT {}, {}", 42L, new byte[] {1, 2}));
+        assertThat(sql).isNotEqualTo(SafeSqlUtils.format("SELECT {} , {}", 42, new byte[] {1, 2}));
+
+        SafeSql constant = SafeSql.constant("SELECT 1");
+        SafeSql built = new SafeSqlBuilder().append("SELECT 1").toSafeSql();
+        assertThat(constant).isEqualTo(built);
+        assertThat(built).isEqualTo(constant);
+        assertThat(constant.hashCode()).isEqualTo(built.hashCode());
+        assertThat(constant).isNotEqualTo(SafeSql.constant("SELECT 2"));
+    }
+
     @Test
     public void testConstant() {
         Assertions.assertThat(SafeSql.constant("SELECT 1"))
@@ -13,6 +13,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.MissingFormatArgumentException;
 import java.util.UUID;
 import org.junit.Test;
@@ -48,6 +50,15 @@ public class SafeSqlUtilsTest {
         assertThat(SafeSqlUtils.escape(5)).hasSql("?").hasParameters(5);
     }
 
+    @Test
+    public void testFromSqlAndParameters() {
+        Object[] parameters = {1, "a"};
+        SafeSql sql = SafeSqlUtils.fromSqlAndParameters("SELECT ?, ?", parameters);
+        parameters[0] = 2;
+        assertThat(sql).hasSql("SELECT ?, ?").hasParameters(1, "a");
+        assertThat(sql).isEqualTo(safesql("SELECT {}, {}", 1, "a"));
+    }
+
     @Test
     public void testFromIdentifier() {
         assertThat(SafeSqlUtils.fromIdentifier("file")).as("Without upper letter").hasSql("file");
@@ -67,6 +78,21 @@ public class SafeSqlUtilsTest {
         assertThat(SafeSqlUtils.mustEscapeIdentifier("a\"a")).as("Double quote").isTrue();
         assertThat(SafeSqlUtils.mustEscapeIdentifier("Étant")).as("no identifier character").isTrue();
         assertThat(SafeSqlUtils.mustEscapeIdentifier("%aA")).as("no identifier character (special)").isTrue();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("a1$_")).as("Digit, dollar and underscore").isFalse();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("1a")).as("Starts with digit").isTrue();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("été")).as("Lower non ASCII").isFalse();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("user")).as("Reserved keyword").isTrue();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("current_user")).as("Reserved keyword with underscore").isTrue();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("users")).as("Not a keyword").isFalse();
+        assertThat(SafeSqlUtils.mustEscapeIdentifier("name")).as("Non reserved keyword").isFalse();
+    }
+
+    @Test
+    public void testMayEscapeIdentifier() {
+        assertThat(SafeSqlUtils.mayEscapeIdentifier("order")).isEqualTo("\"order\"");
+        assertThat(SafeSqlUtils.mayEscapeIdentifier("order")).as("Cached").isEqualTo("\"order\"");
+        assertThat(SafeSqlUtils.mayEscapeIdentifier("My\"Table")).isEqualTo("\"My\"\"Table\"");
+        assertThat(SafeSqlUtils.mayEscapeIdentifier("my_table")).isEqualTo("my_table");
     }
 
     @Test
@@ -98,6 +124,32 @@ public class SafeSqlUtilsTest {
         assertThat(SafeSqlUtils.toString(safesql("SELECT {}", new MyData("Hello")))).as("SafeSqlLiteralizable").isEqualTo("SELECT 'Hello'");
     }
 
+    @Test
+    public void testBoundedToString() {
+        SafeSql sql = safesql("SELECT {} FROM table", "Cheveux d'ange");
+        assertThat(SafeSqlUtils.toString(sql, 100, 100)).as("Not truncated").isEqualTo("SELECT 'Cheveux d''ange' FROM table");
+        assertThat(SafeSqlUtils.toString(sql, 10, 100)).as("Total").isEqualTo("SELECT 'Ch...");
+        assertThat(SafeSqlUtils.toString(sql, 100, 7)).as("String parameter").isEqualTo("SELECT 'Cheveux'... FROM table");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}", new byte[] {1, 2, 3, 4}), 100, 4)).as("byte[] parameter").isEqualTo("SELECT BYTEA '\\x0102'...");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}", new PGArrayParameter<>("INT", new Object[] {1, 2, 3})), 100, 4)).as("Array parameter").isEqualTo("SELECT '{1,2'...::INT[]");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}", new MyData("Hello")), 100, 4)).as("SafeSqlLiteralizable parameter").isEqualTo("SELECT 'Hel...");
+        Object rendered = new Object() {
+            @Override
+            public String toString() {
+                return "Cheveux";
+            }
+        };
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {} FROM table", rendered), 100, 4)).as("toString() parameter").isEqualTo("SELECT 'Chev'... FROM table");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}", "d'a'b"), 100, 4)).as("Escaped length").isEqualTo("SELECT 'd''a'...");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}", new PGArrayParameter<>("text", new Object[] {"'''"})), 100, 4)).as("Escaped array").isEqualTo("SELECT '{\"'''...::text[]");
+        assertThat(SafeSqlUtils.toString(safesql("SELECT {}, {}", 1, 2), 9, 100)).as("Stops before last parameter").isEqualTo("SELECT 1,...");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBoundedToStringNegative() {
+        SafeSqlUtils.toString(safesql("SELECT 1"), -1, 10);
+    }
+
     @Test
     public void testLiteralize() {
         assertThat(SafeSqlUtils.literalize(safesql("SELECT * FORM table WHERE column = {}", "Hello the world")))
@@ -130,6 +182,55 @@ public class SafeSqlUtilsTest {
         SafeSqlUtils.format("SELECT {3}");
     }
 
+    public static class Order {
+
+        public final int total = 12;
+
+        public long getId() {
+            return 42L;
+        }
+
+        public boolean isPaid() {
+            return true;
+        }
+
+        public String status() {
+            return "open";
+        }
+
+    }
+
+    @Test
+    public void testFormatNamed() {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("id", 5);
+        arguments.put("name", "Hello");
+        arguments.put("unused", 1);
+        assertThat(SafeSqlUtils.formatNamed("SELECT * FROM table WHERE col1 = {:id} AND (col2 = {:name} OR col3 = {:id}) AND col4 = {{:id}}", arguments))
+                .hasSql("SELECT * FROM table WHERE col1 = ? AND (col2 = ? OR col3 = ?) AND col4 = {:id}")
+                .hasParameters(5, "Hello", 5);
+
+        SafeSqlFormat format = SafeSqlFormat.compile("UPDATE orders SET paid = {:paid}, status = {:status}, total = {:total} WHERE id = {:id}");
+        assertThat(format.getNames()).containsExactly("paid", "status", "total", "id");
+        assertThat(format.format(new Order()))
+                .hasSql("UPDATE orders SET paid = ?, status = ?, total = ? WHERE id = ?")
+                .hasParameters(true, "open", 12, 42L);
+        assertThat(SafeSqlUtils.formatNamed("SELECT 1", arguments)).hasSql("SELECT 1").hasEmptyParameters();
+
+        Object untyped = arguments;
+        assertThat(SafeSqlUtils.formatNamed("SELECT {:id}", untyped)).hasSql("SELECT ?").hasParameters(5);
+    }
+
+    @Test(expected=MissingFormatArgumentException.class)
+    public void testFormatNamedMissing() {
+        SafeSqlUtils.formatNamed("SELECT {:id}", new HashMap<>());
+    }
+
+    @Test(expected=MissingFormatArgumentException.class)
+    public void testFormatNamedMissingProperty() {
+        SafeSqlUtils.formatNamed("SELECT {:name}", new Order());
+    }
+
     @Test
     public void testEscapeLikeValue() {
         assertThat(SafeSqlUtils.escapeLikeValue("%hello%")).isEqualTo("\\%hello\\%");
@@ -138,6 +239,18 @@ public class SafeSqlUtilsTest {
     @Test
     public void testCustomEscapeLikeValue() {
         assertThat(SafeSqlUtils.escapeLikeValue("%hello%", '/')).isEqualTo("/%hello/%");
+        assertThat(SafeSqlUtils.escapeLikeValue("a/b_c", '/')).isEqualTo("a//b/_c");
+        assertThat(SafeSqlUtils.escapeLikeValue("$1_]", '$')).as("Regex special char").isEqualTo("$$1$_]");
+        assertThat(SafeSqlUtils.escapeLikeValue("a]b", ']')).as("Regex special char").isEqualTo("a]]b");
+        assertThat(SafeSqlUtils.escapeLikeValue("a\\b")).as("Default escape char").isEqualTo("a\\\\b");
+        assertThat(SafeSqlUtils.escapeLikeValue("hello")).as("Nothing to escape").isEqualTo("hello");
+    }
+
+    @Test
+    public void testEscapeString() {
+        assertThat(SafeSqlUtils.escapeString("")).isEqualTo("''");
+        assertThat(SafeSqlUtils.escapeString("hello")).isEqualTo("'hello'");
+        assertThat(SafeSqlUtils.escapeString("'it''s'")).isEqualTo("'''it''''s'''");
     }
 
     private static SafeSql safesql(String sql, Object... args) {